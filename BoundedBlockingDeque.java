@@ -0,0 +1,439 @@
+/****************************************************************************
+ *  Compilation:  javac BoundedBlockingDeque.java
+ *  Execution:  java BoundedBlockingDeque
+ *  Dependencies: Deque.java, java.util.NoSuchElementException and
+ *                java.util.concurrent.
+ *
+ *  Bounded blocking deque.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: BoundedBlockingDeque.java
+ * Description: *The <tt>BoundedBlockingDeque</tt> .java
+ * program is a thread-safe <tt>Deque</tt> with a fixed capacity, meant to sit
+ * between the stages of a producer/consumer pipeline. Besides addFirst(),
+ * addLast(), removeFirst() and removeLast(), which fail immediately, it
+ * supports putFirst() and putLast(), which wait for space, takeFirst() and
+ * takeLast(), which wait for an item, and timed offerFirst(), offerLast(),
+ * pollFirst() and pollLast().
+ * <p>
+ * This implementation wraps a <tt>Deque</tt> with a single
+ * <tt>ReentrantLock</tt> and two conditions, one for "not empty" and one for
+ * "not full". Waiting threads are parked by the conditions rather than
+ * spinning, and no <tt>synchronized</tt> block is used so virtual threads
+ * are not pinned to their carrier while they wait. Each operation takes
+ * constant time once the lock is held.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BoundedBlockingDeque<Item> {
+    private final Deque<Item> deque = new Deque<Item>(); // items in order
+    private final int capacity; // maximum number of items
+    private final ReentrantLock lock = new ReentrantLock(); // guards deque
+    private final Condition notEmpty = lock.newCondition(); // for takers
+    private final Condition notFull = lock.newCondition(); // for putters
+
+    /**
+     * Constructs an empty deque holding at most capacity items
+     *
+     * @param capacity
+     *            indicates the maximum number of items
+     * @throws java.lang.IllegalArgumentException
+     *             if capacity is not positive
+     */
+    public BoundedBlockingDeque(int capacity) // construct an empty deque
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Checks if the deque is empty or not
+     *
+     * @return true if it is empty and false if it is not
+     */
+    public boolean isEmpty() // is the deque empty?
+    {
+        lock.lock();
+        try {
+            return deque.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of items in deque
+     *
+     * @return the size of the deque
+     */
+    public int size() // return the number of items on the deque
+    {
+        lock.lock();
+        try {
+            return deque.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum number of items the deque can hold
+     *
+     * @return the capacity of the deque
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of items that can be added without waiting
+     *
+     * @return the capacity minus the size
+     */
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - deque.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an element to the front or the end of the deque; the lock must be
+     * held and there must be space.
+     */
+    private void link(Item item, boolean front) {
+        if (front)
+            deque.addFirst(item);
+        else
+            deque.addLast(item);
+        notEmpty.signal();
+    }
+
+    /**
+     * Removes an element from the front or the end of the deque; the lock
+     * must be held and the deque must not be empty.
+     */
+    private Item unlink(boolean front) {
+        Item item = front ? deque.removeFirst() : deque.removeLast();
+        notFull.signal();
+        return item;
+    }
+
+    /**
+     * Adds an element without waiting
+     *
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.IllegalStateException
+     *             if the deque is full
+     */
+    private void add(Item item, boolean front) {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        lock.lock();
+        try {
+            if (deque.size() == capacity)
+                throw new IllegalStateException("Full Queue");
+            link(item, front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an element, waiting for space if the deque is full
+     *
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    private void put(Item item, boolean front) throws InterruptedException {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity)
+                notFull.await();
+            link(item, front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an element, waiting up to the timeout for space
+     *
+     * @return true if the item was added and false if the timeout elapsed
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    private boolean offer(Item item, boolean front, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                if (nanos <= 0)
+                    return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            link(item, front);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an element without waiting
+     *
+     * @throws java.util.NoSuchElementException
+     *             if the deque is empty
+     */
+    private Item remove(boolean front) {
+        lock.lock();
+        try {
+            if (deque.isEmpty())
+                throw new NoSuchElementException("Empty Queue");
+            return unlink(front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an element, waiting for one if the deque is empty
+     *
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    private Item take(boolean front) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty())
+                notEmpty.await();
+            return unlink(front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an element, waiting up to the timeout for one
+     *
+     * @return the item removed, or null if the timeout elapsed
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    private Item poll(boolean front, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                if (nanos <= 0)
+                    return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return unlink(front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an element to the front of the deque without waiting
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.IllegalStateException
+     *             if the deque is full
+     */
+    public void addFirst(Item item) {
+        add(item, true);
+    }
+
+    /**
+     * Adds an element at the end of the deque without waiting
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.IllegalStateException
+     *             if the deque is full
+     */
+    public void addLast(Item item) {
+        add(item, false);
+    }
+
+    /**
+     * Adds an element to the front of the deque, waiting for space
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public void putFirst(Item item) throws InterruptedException {
+        put(item, true);
+    }
+
+    /**
+     * Adds an element at the end of the deque, waiting for space
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public void putLast(Item item) throws InterruptedException {
+        put(item, false);
+    }
+
+    /**
+     * Adds an element to the front of the deque, waiting up to the timeout
+     * for space
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @param timeout
+     *            indicates how long to wait, in units of unit
+     * @param unit
+     *            indicates the unit of timeout
+     * @return true if the item was added and false if the timeout elapsed
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public boolean offerFirst(Item item, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return offer(item, true, timeout, unit);
+    }
+
+    /**
+     * Adds an element at the end of the deque, waiting up to the timeout for
+     * space
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @param timeout
+     *            indicates how long to wait, in units of unit
+     * @param unit
+     *            indicates the unit of timeout
+     * @return true if the item was added and false if the timeout elapsed
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public boolean offerLast(Item item, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return offer(item, false, timeout, unit);
+    }
+
+    /**
+     * Removes an element from the beginning of the deque without waiting
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeFirst() {
+        return remove(true);
+    }
+
+    /**
+     * Removes an element from the end of the deque without waiting
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeLast() {
+        return remove(false);
+    }
+
+    /**
+     * Removes an element from the beginning of the deque, waiting for one
+     *
+     * @return an item removed
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public Item takeFirst() throws InterruptedException {
+        return take(true);
+    }
+
+    /**
+     * Removes an element from the end of the deque, waiting for one
+     *
+     * @return an item removed
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public Item takeLast() throws InterruptedException {
+        return take(false);
+    }
+
+    /**
+     * Removes an element from the beginning of the deque, waiting up to the
+     * timeout for one
+     *
+     * @param timeout
+     *            indicates how long to wait, in units of unit
+     * @param unit
+     *            indicates the unit of timeout
+     * @return an item removed, or null if the timeout elapsed
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public Item pollFirst(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return poll(true, timeout, unit);
+    }
+
+    /**
+     * Removes an element from the end of the deque, waiting up to the
+     * timeout for one
+     *
+     * @param timeout
+     *            indicates how long to wait, in units of unit
+     * @param unit
+     *            indicates the unit of timeout
+     * @return an item removed, or null if the timeout elapsed
+     * @throws java.lang.InterruptedException
+     *             if interrupted while waiting
+     */
+    public Item pollLast(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return poll(false, timeout, unit);
+    }
+
+    public static void main(String[] args) // unit testing
+    {
+    }
+}
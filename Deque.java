@@ -1,7 +1,9 @@
 /****************************************************************************
  *  Compilation:  javac Deque.java
  *  Execution:  java Deque
- *  Dependencies: java.util.Iterator and java.util.NoSuchElementException.
+ *  Dependencies: java.util.Arrays, java.util.Collection, java.util.Iterator
+ *                java.util.NoSuchElementException, java.util.Spliterator
+ *                and java.util.stream.
  *
  *  Deque.
  *
@@ -11,20 +13,32 @@
  * Description: *The <tt>Deque</tt> .java
  * program supports adding and removing items from either the front
  *  or the back of the data structure. It supports addFirst(), addLast(),
- * removeFirst() and removeLast() operations. It also has an iterator which
- * iterates over items in order from front to end.
+ * removeFirst() and removeLast() operations, along with their bulk forms
+ * addAllFirst(), addAllLast(), drainFirst() and drainLast(). Items added
+ * with addFirstHandle() or addLastHandle() can later be removed from the
+ * middle with remove() or moved with moveToFront() and moveToBack(). It
+ * also has an iterator which iterates over items in order from front to
+ * end, and a sized spliterator so the items can be streamed in parallel.
  * <p>
  * This implementation uses doubly linked list. Each Deque operation is in
  * constant worst time and use space proportional to the number of items 
- * currently in the deque. Iterator implemetation supports each operation 
- * (including construction) in constant worst-case time.
+ * currently in the deque. The bulk operations take time proportional to the
+ * number of items moved and splice them in or out in one step. Iterator
+ * implemetation supports each operation (including construction) in
+ * constant worst-case time.
  * 
  * @author Amulya Manchikanti
  * @date : 07/03/2015
  */
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Deque<Item> implements Iterable<Item> {
     private int N; // size of the deque
@@ -32,10 +46,31 @@ public class Deque<Item> implements Iterable<Item> {
     private Node last; // last pointer
 
     // helper doubly linked list class
-    private class Node {
+    /**
+     * Handle on an item in the deque, returned by addFirstHandle() and
+     * addLastHandle(), which lets the item be removed or moved in constant
+     * time
+     */
+    public interface Handle<Item> {
+        /**
+         * Returns the item this handle refers to
+         */
+        Item item();
+    }
+
+    // helper doubly linked list class; a removed node points prev at itself
+    private class Node implements Handle<Item> {
         private Item item; // item to be added
         private Node next; // pointer to next element
         private Node prev; // pointer to previous element
+
+        public Item item() {
+            return item;
+        }
+
+        private Deque<Item> owner() {
+            return Deque.this;
+        }
     }
 
     /**
@@ -144,6 +179,7 @@ public class Deque<Item> implements Iterable<Item> {
     {
         if (isEmpty())
             throw new NoSuchElementException("Empty Queue");
+        Node oldfirst = first;
         Item item = first.item;
         if (first.next == null)
         {
@@ -155,6 +191,7 @@ public class Deque<Item> implements Iterable<Item> {
             first = first.next;
             first.prev = null;
         }
+        oldfirst.prev = oldfirst; // mark as removed
         N--;
         return item;
     }
@@ -170,6 +207,7 @@ public class Deque<Item> implements Iterable<Item> {
     {
         if (isEmpty())
             throw new NoSuchElementException("Empty Queue");
+        Node oldlast = last;
         Item item = last.item;
         if (last.prev == null)
         {
@@ -181,10 +219,328 @@ public class Deque<Item> implements Iterable<Item> {
             last = last.prev;
             last.next = null;
         }
+        oldlast.prev = oldlast; // mark as removed
         N--;
         return item;
     }
 
+    /**
+     * Adds an element to the front of the deque and returns its handle
+     * 
+     * @param item
+     *            indicates the value to be added.
+     * @return the handle on the new item
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public Handle<Item> addFirstHandle(Item item) // add the item to the front
+    {
+        addFirst(item);
+        return first;
+    }
+
+    /**
+     * Adds an element at the end of the deque and returns its handle
+     * 
+     * @param item
+     *            indicates the value to be added.
+     * @return the handle on the new item
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public Handle<Item> addLastHandle(Item item) // add the item to the end
+    {
+        addLast(item);
+        return last;
+    }
+
+    /**
+     * Checks that the handle refers to an item still in this deque
+     * 
+     * @return the node behind the handle
+     */
+    private Node node(Handle<Item> handle) {
+        if (handle == null)
+            throw new NullPointerException("Handle is null");
+        if (!(handle instanceof Deque.Node))
+            throw new IllegalArgumentException("Not a Deque handle");
+        Node node = (Node) handle;
+        if (node.owner() != this || node.prev == node)
+            throw new IllegalArgumentException("Item is not in this deque");
+        return node;
+    }
+
+    /**
+     * Unlinks a node from wherever it is in the list
+     */
+    private void unlink(Node node) {
+        if (node.prev == null)
+            first = node.next;
+        else
+            node.prev.next = node.next;
+        if (node.next == null)
+            last = node.prev;
+        else
+            node.next.prev = node.prev;
+        node.next = null;
+        node.prev = null;
+    }
+
+    /**
+     * Removes the element the handle refers to, wherever it is in the deque
+     * 
+     * @param handle
+     *            indicates the item to be removed
+     * @return the item removed
+     * @throws java.lang.IllegalArgumentException
+     *             if the item is no longer in this deque
+     */
+    public Item remove(Handle<Item> handle) // remove the item in constant time
+    {
+        Node node = node(handle);
+        unlink(node);
+        node.prev = node; // mark as removed
+        N--;
+        return node.item;
+    }
+
+    /**
+     * Moves the element the handle refers to to the front of the deque
+     * 
+     * @param handle
+     *            indicates the item to be moved
+     * @throws java.lang.IllegalArgumentException
+     *             if the item is no longer in this deque
+     */
+    public void moveToFront(Handle<Item> handle) // move the item to the front
+    {
+        Node node = node(handle);
+        if (node == first)
+            return;
+        unlink(node);
+        node.next = first;
+        first.prev = node;
+        first = node;
+    }
+
+    /**
+     * Moves the element the handle refers to to the end of the deque
+     * 
+     * @param handle
+     *            indicates the item to be moved
+     * @throws java.lang.IllegalArgumentException
+     *             if the item is no longer in this deque
+     */
+    public void moveToBack(Handle<Item> handle) // move the item to the end
+    {
+        Node node = node(handle);
+        if (node == last)
+            return;
+        unlink(node);
+        node.prev = last;
+        last.next = node;
+        last = node;
+    }
+
+    /**
+     * Adds all the elements to the front of the deque, as if addFirst() were
+     * called on each of them in turn, so the last element ends up first. The
+     * new nodes are linked into a chain and spliced in once.
+     * 
+     * @param items
+     *            indicates the values to be added
+     * @throws java.lang.NullPointerException
+     *             if any item added is null; the deque is then unchanged
+     */
+    public void addAllFirst(Item[] items) // add the items to the front
+    {
+        addAllFirst(Arrays.asList(items));
+    }
+
+    /**
+     * Adds all the elements to the front of the deque, as if addFirst() were
+     * called on each of them in turn, so the last element ends up first. The
+     * new nodes are linked into a chain and spliced in once.
+     * 
+     * @param items
+     *            indicates the values to be added
+     * @throws java.lang.NullPointerException
+     *             if any item added is null; the deque is then unchanged
+     */
+    public void addAllFirst(Iterable<? extends Item> items) // add the items to
+                                                            // the front
+    {
+        Node chainFirst = null, chainLast = null;
+        int count = 0;
+        for (Item item : items) {
+            if (item == null)
+                throw new NullPointerException("Item is null");
+            Node node = new Node();
+            node.item = item;
+            node.next = chainFirst;
+            if (chainFirst == null)
+                chainLast = node;
+            else
+                chainFirst.prev = node;
+            chainFirst = node;
+            count++;
+        }
+        if (count == 0)
+            return;
+
+        if (isEmpty())
+            last = chainLast;
+        else {
+            chainLast.next = first;
+            first.prev = chainLast;
+        }
+        first = chainFirst;
+        N += count;
+    }
+
+    /**
+     * Adds all the elements at the end of the deque in order. The new nodes
+     * are linked into a chain and spliced in once.
+     * 
+     * @param items
+     *            indicates the values to be added
+     * @throws java.lang.NullPointerException
+     *             if any item added is null; the deque is then unchanged
+     */
+    public void addAllLast(Item[] items) // add the items to the end
+    {
+        addAllLast(Arrays.asList(items));
+    }
+
+    /**
+     * Adds all the elements at the end of the deque in order. The new nodes
+     * are linked into a chain and spliced in once.
+     * 
+     * @param items
+     *            indicates the values to be added
+     * @throws java.lang.NullPointerException
+     *             if any item added is null; the deque is then unchanged
+     */
+    public void addAllLast(Iterable<? extends Item> items) // add the items to
+                                                           // the end
+    {
+        Node chainFirst = null, chainLast = null;
+        int count = 0;
+        for (Item item : items) {
+            if (item == null)
+                throw new NullPointerException("Item is null");
+            Node node = new Node();
+            node.item = item;
+            node.prev = chainLast;
+            if (chainLast == null)
+                chainFirst = node;
+            else
+                chainLast.next = node;
+            chainLast = node;
+            count++;
+        }
+        if (count == 0)
+            return;
+
+        if (isEmpty())
+            first = chainFirst;
+        else {
+            chainFirst.prev = last;
+            last.next = chainFirst;
+        }
+        last = chainLast;
+        N += count;
+    }
+
+    /**
+     * Removes up to max elements from the beginning of the deque and adds
+     * them to the collection in the order they are removed. The removed
+     * nodes are cut off with a single splice.
+     * 
+     * @param c
+     *            indicates the collection to add the items to
+     * @param max
+     *            indicates the maximum number of items to remove
+     * @return the number of items removed
+     * @throws java.lang.IllegalArgumentException
+     *             if max is negative
+     */
+    public int drainFirst(Collection<? super Item> c, int max) // remove up to
+                                                               // max items
+                                                               // from the front
+    {
+        if (c == null)
+            throw new NullPointerException("Collection is null");
+        if (max < 0)
+            throw new IllegalArgumentException("max is negative");
+        int count = Math.min(max, N);
+        if (count == 0)
+            return 0;
+
+        Node current = first;
+        for (int i = 0; i < count; i++) {
+            c.add(current.item);
+            current = current.next;
+        }
+        // current is the new first node, or null if everything was drained
+        Node drained = first;
+        if (current == null)
+            last = null;
+        else
+            current.prev = null;
+        first = current;
+        N -= count;
+        for (; drained != current; drained = drained.next)
+            drained.prev = drained; // mark as removed
+        return count;
+    }
+
+    /**
+     * Removes up to max elements from the end of the deque and adds them to
+     * the collection in the order they are removed. The removed nodes are
+     * cut off with a single splice.
+     * 
+     * @param c
+     *            indicates the collection to add the items to
+     * @param max
+     *            indicates the maximum number of items to remove
+     * @return the number of items removed
+     * @throws java.lang.IllegalArgumentException
+     *             if max is negative
+     */
+    public int drainLast(Collection<? super Item> c, int max) // remove up to
+                                                              // max items from
+                                                              // the end
+    {
+        if (c == null)
+            throw new NullPointerException("Collection is null");
+        if (max < 0)
+            throw new IllegalArgumentException("max is negative");
+        int count = Math.min(max, N);
+        if (count == 0)
+            return 0;
+
+        Node current = last;
+        for (int i = 0; i < count; i++) {
+            c.add(current.item);
+            current = current.prev;
+        }
+        // current is the new last node, or null if everything was drained
+        Node drained = last;
+        if (current == null)
+            first = null;
+        else
+            current.next = null;
+        last = current;
+        N -= count;
+        while (drained != current) {
+            Node prev = drained.prev;
+            drained.prev = drained; // mark as removed
+            drained = prev;
+        }
+        return count;
+    }
+
     /**
      * An iterator is returned
      */
@@ -226,6 +582,95 @@ public class Deque<Item> implements Iterable<Item> {
         }
     }
 
+    /**
+     * A spliterator is returned which splits the deque by position
+     */
+    @Override
+    public Spliterator<Item> spliterator() // return a spliterator over items
+                                            // in order from front to end
+    {
+        return new DequeSpliterator(first, N);
+    }
+
+    /**
+     * Returns a sequential stream over the items from front to end
+     */
+    public Stream<Item> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over the items from front to end
+     */
+    public Stream<Item> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Spliterator over a run of consecutive nodes. Splitting walks half of
+     * the run and hands the front half to the new spliterator, so both
+     * halves know their exact size.
+     */
+    private class DequeSpliterator implements Spliterator<Item> {
+        private Node current; // next node to visit
+        private int remaining; // number of nodes left in this run
+
+        DequeSpliterator(Node current, int remaining) {
+            this.current = current;
+            this.remaining = remaining;
+        }
+
+        /**
+         * Visits the next item if there is one
+         */
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (remaining == 0)
+                return false;
+            Item item = current.item;
+            current = current.next;
+            remaining--;
+            action.accept(item);
+            return true;
+        }
+
+        /**
+         * Visits all the remaining items
+         */
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null)
+                throw new NullPointerException();
+            for (; remaining > 0; remaining--) {
+                action.accept(current.item);
+                current = current.next;
+            }
+        }
+
+        /**
+         * Splits off the first half of the remaining nodes
+         */
+        public Spliterator<Item> trySplit() {
+            if (remaining < 2)
+                return null;
+            int half = remaining / 2;
+            Node start = current;
+            for (int i = 0; i < half; i++)
+                current = current.next;
+            remaining -= half;
+            return new DequeSpliterator(start, half);
+        }
+
+        public long estimateSize() {
+            return remaining;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED
+                    | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
     public static void main(String[] args) // unit testing
     {
     }
@@ -0,0 +1,192 @@
+/****************************************************************************
+ *  Compilation:  javac IntDeque.java
+ *  Execution:  java IntDeque
+ *  Dependencies: java.util.PrimitiveIterator and
+ *                java.util.NoSuchElementException.
+ *
+ *  Int deque.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: IntDeque.java
+ * Description: *The <tt>IntDeque</tt> .java
+ * program is <tt>Deque</tt> specialized for <tt>int</tt> values. It supports
+ * addFirst(), addLast(), removeFirst() and removeLast() operations. It also
+ * has an iterator which iterates over values in order from front to end.
+ * <p>
+ * This implementation uses a circular resizing <tt>int[]</tt>, so no value
+ * is ever boxed. The array doubles when it is full and halves when it is
+ * one-quarter full. Each operation takes constant amortized time. The
+ * iterator is a <tt>PrimitiveIterator.OfInt</tt>; calling nextInt() instead
+ * of next() keeps the loop allocation free.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class IntDeque implements Iterable<Integer> {
+    private int[] a; // circular array of values
+    private int head; // index of the first value
+    private int N; // size of the deque
+
+    /**
+     * Constructs an empty deque
+     */
+    public IntDeque() // construct an empty deque
+    {
+        a = new int[2];
+        head = 0;
+        N = 0;
+    }
+
+    /**
+     * Checks if the deque is empty or not
+     *
+     * @return true if it is empty and false if it is not
+     */
+    public boolean isEmpty() // is the deque empty?
+    {
+        return N == 0;
+    }
+
+    /**
+     * Returns the number of values in deque
+     *
+     * @return the size of the deque
+     */
+    public int size() // return the number of values on the deque
+    {
+        return N;
+    }
+
+    /**
+     * Resizes the array, moving the first value to index 0
+     *
+     * @param capacity
+     *            indicates the new size of the array, a power of two
+     */
+    private void resize(int capacity) {
+        assert capacity >= N;
+        int[] temp = new int[capacity];
+        int mask = a.length - 1;
+        for (int i = 0; i < N; i++) {
+            temp[i] = a[(head + i) & mask];
+        }
+        a = temp;
+        head = 0;
+    }
+
+    /**
+     * Adds a value to the front of the deque
+     *
+     * @param value
+     *            indicates the value to be added.
+     */
+    public void addFirst(int value) // add the value to the front
+    {
+        if (N == a.length)
+            resize(2 * a.length); // double size of array if necessary
+        head = (head - 1) & (a.length - 1);
+        a[head] = value;
+        N++;
+    }
+
+    /**
+     * Adds a value at the end of the deque
+     *
+     * @param value
+     *            indicates the value to be added
+     */
+    public void addLast(int value) // add the value to the end
+    {
+        if (N == a.length)
+            resize(2 * a.length); // double size of array if necessary
+        a[(head + N) & (a.length - 1)] = value;
+        N++;
+    }
+
+    /**
+     * Removes a value from the beginning of the deque
+     *
+     * @return a value removed
+     * @throws java.util.NoSuchElementException
+     *             if the value is removed form empty deque
+     */
+    public int removeFirst() // remove and return the value from the front
+    {
+        if (isEmpty())
+            throw new NoSuchElementException("Empty Queue");
+        int value = a[head];
+        head = (head + 1) & (a.length - 1);
+        N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4)
+            resize(a.length / 2);
+        return value;
+    }
+
+    /**
+     * Removes a value from the end of the deque
+     *
+     * @return a value removed
+     * @throws java.util.NoSuchElementException
+     *             if the value is removed form empty deque
+     */
+    public int removeLast() // remove and return the value from the end
+    {
+        if (isEmpty())
+            throw new NoSuchElementException("Empty Queue");
+        int value = a[(head + N - 1) & (a.length - 1)];
+        N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4)
+            resize(a.length / 2);
+        return value;
+    }
+
+    /**
+     * An iterator is returned
+     */
+    public PrimitiveIterator.OfInt iterator() // return an iterator over values
+                                                // in order from front to end
+    {
+        return new ArrayIterator();
+    }
+
+    /**
+     * Iterator is implemented to iterate values in order
+     */
+    private class ArrayIterator implements PrimitiveIterator.OfInt {
+        private int i = 0; // number of values returned so far
+
+        /**
+         * Returns true if there is a next element
+         */
+        public boolean hasNext() {
+            return i < N;
+        }
+
+        /**
+         * Throws an exception if this is called
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Iterates through the values in the array and returns the value
+         */
+        public int nextInt() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return a[(head + i++) & (a.length - 1)];
+        }
+    }
+
+    public static void main(String[] args) // unit testing
+    {
+    }
+}
@@ -0,0 +1,206 @@
+/****************************************************************************
+ *  Compilation:  javac KeyHeap.java
+ *  Execution:  none
+ *  Dependencies: java.util.Arrays and java.util.NoSuchElementException.
+ *
+ *  Key heap.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: KeyHeap.java
+ * Description: *The <tt>KeyHeap</tt> .java
+ * program is a fixed-capacity minimum priority queue of items keyed by
+ * <tt>double</tt> values, used to keep the k items with the largest keys.
+ * It supports insert(), minKey(), replaceMin() and itemsByDecreasingKey()
+ * operations.
+ * <p>
+ * This implementation uses a binary heap stored in a primitive
+ * <tt>double[]</tt> of keys with a parallel array of items, so keys are
+ * never boxed. The arrays start small and double as items are inserted, up
+ * to the capacity, so a heap with a large capacity that holds few items
+ * stays small; once the heap is full nothing more is allocated. insert() and
+ * replaceMin() take logarithmic time and minKey() constant time.
+ * itemsByDecreasingKey() heapsorts a copy of the arrays, in time
+ * proportional to k log k.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class KeyHeap<Item> {
+    private static final int INITIAL = 16; // initial length of the arrays
+
+    private final int capacity; // maximum number of keys
+    private double[] keys; // heap-ordered keys, 0-based
+    private Object[] items; // item of each key
+    private int n; // number of keys on the heap
+
+    /**
+     * Constructs an empty heap holding at most capacity items
+     *
+     * @param capacity
+     *            indicates the maximum number of items
+     */
+    public KeyHeap(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity is negative");
+        this.capacity = capacity;
+        keys = new double[Math.min(capacity, INITIAL)];
+        items = new Object[keys.length];
+    }
+
+    /**
+     * Returns the number of items on the heap
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the maximum number of items on the heap
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Checks if the heap is at capacity
+     */
+    public boolean isFull() {
+        return n == capacity;
+    }
+
+    /**
+     * Returns the smallest key on the heap
+     *
+     * @throws java.util.NoSuchElementException
+     *             if the heap is empty
+     */
+    public double minKey() {
+        if (n == 0)
+            throw new NoSuchElementException("Empty heap");
+        return keys[0];
+    }
+
+    /**
+     * Returns the key at position i of the heap array, in no particular order
+     */
+    public double key(int i) {
+        if (i < 0 || i >= n)
+            throw new IndexOutOfBoundsException();
+        return keys[i];
+    }
+
+    /**
+     * Returns the item at position i of the heap array, in no particular
+     * order
+     */
+    public Item item(int i) {
+        if (i < 0 || i >= n)
+            throw new IndexOutOfBoundsException();
+        return (Item) items[i];
+    }
+
+    /**
+     * Adds an item with the given key
+     *
+     * @throws java.lang.IllegalStateException
+     *             if the heap is full
+     */
+    public void insert(double key, Item item) {
+        if (n == capacity)
+            throw new IllegalStateException("Full heap");
+        if (n == keys.length) {
+            int length = (int) Math.min(capacity, 2L * keys.length);
+            keys = Arrays.copyOf(keys, length);
+            items = Arrays.copyOf(items, length);
+        }
+        int i = n++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= key)
+                break;
+            keys[i] = keys[parent];
+            items[i] = items[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        items[i] = item;
+    }
+
+    /**
+     * Replaces the item with the smallest key by the given one
+     *
+     * @throws java.util.NoSuchElementException
+     *             if the heap is empty
+     */
+    public void replaceMin(double key, Item item) {
+        if (n == 0)
+            throw new NoSuchElementException("Empty heap");
+        sink(keys, items, n, key, item);
+    }
+
+    /**
+     * Puts the key at the root of a heap of n keys and moves it down to its
+     * place
+     */
+    private static void sink(double[] keys, Object[] items, int n, double key,
+            Object item) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n)
+                break;
+            if (child + 1 < n && keys[child + 1] < keys[child])
+                child++;
+            if (keys[child] >= key)
+                break;
+            keys[i] = keys[child];
+            items[i] = items[child];
+            i = child;
+        }
+        keys[i] = key;
+        items[i] = item;
+    }
+
+    /**
+     * Returns the items by decreasing key, leaving the heap unchanged
+     *
+     * @param a
+     *            indicates the array to fill, or one of the right type to
+     *            copy if it is shorter than size()
+     * @return the first size() entries of the array hold the items
+     */
+    public Item[] itemsByDecreasingKey(Item[] a) {
+        if (a.length < n)
+            a = Arrays.copyOf(a, n);
+        // heapsort a copy: the smallest key left goes to the end
+        double[] k = Arrays.copyOf(keys, n);
+        Object[] o = Arrays.copyOf(items, n);
+        for (int m = n; m > 0; m--) {
+            a[m - 1] = (Item) o[0];
+            sink(k, o, m - 1, k[m - 1], o[m - 1]);
+        }
+        return a;
+    }
+
+    /**
+     * Offers an item: it is kept if the heap is not full or its key is
+     * larger than the smallest key, which it then replaces
+     *
+     * @return true if the item was kept
+     */
+    public boolean offer(double key, Item item) {
+        if (n < capacity) {
+            insert(key, item);
+            return true;
+        }
+        if (n == 0 || key <= keys[0])
+            return false;
+        replaceMin(key, item);
+        return true;
+    }
+}
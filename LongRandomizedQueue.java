@@ -0,0 +1,234 @@
+/****************************************************************************
+ *  Compilation:  javac LongRandomizedQueue.java
+ *  Execution:  java LongRandomizedQueue
+ *  Dependencies: java.util.NoSuchElementException, java.util.PrimitiveIterator
+ *                and java.util.random.
+ *
+ *  Long randomized queue.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: LongRandomizedQueue.java
+ * Description: *The <tt>LongRandomizedQueue</tt> .java
+ * program is <tt>RandomizedQueue</tt> specialized for <tt>long</tt> values.
+ * It supports enqueue(), dequeue(), sample() operations. It also has an
+ * iterator which iterates over values in random order.
+ * <p>
+ * This implementation uses a resizing <tt>long[]</tt> with the same policy
+ * as <tt>RandomizedQueue</tt>: the array doubles when it is full and halves
+ * when it is one-quarter full. No value is ever boxed, so enqueue(),
+ * dequeue() and sample() allocate nothing apart from resizing, and each
+ * takes constant amortized time. The iterator is a
+ * <tt>PrimitiveIterator.OfLong</tt> over a shuffled copy of the values; its
+ * construction takes linear time and nextLong() constant time. Random
+ * choices come from a pluggable <tt>RandomGenerator</tt>, as in
+ * <tt>RandomizedQueue</tt>.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+public class LongRandomizedQueue implements Iterable<Long> {
+     private long[] a;                         // array of values
+     private int N;                            // number of values
+     private final RandomGenerator random;     // null for ThreadLocalRandom
+
+     /**
+      * Constructs an empty randomized queue
+      */
+     public LongRandomizedQueue() // construct an empty randomized queue
+     {
+          this((RandomGenerator) null);
+     }
+
+     /**
+      * Constructs an empty randomized queue whose random choices are
+      * reproducible from the seed
+      * 
+      * @param seed
+      *            indicates the seed of the random generator
+      */
+     public LongRandomizedQueue(long seed) {
+          this(new SplittableRandom(seed));
+     }
+
+     /**
+      * Constructs an empty randomized queue using the given random generator
+      * 
+      * @param random
+      *            indicates the generator, or null to use the calling
+      *            thread's ThreadLocalRandom
+      */
+     public LongRandomizedQueue(RandomGenerator random) {
+          a = new long[2];
+          this.random = random;
+     }
+
+     /**
+      * Returns a uniformly random integer in [0, n) without modulo bias,
+      * using Lemire's multiply-shift method
+      * 
+      * @param n
+      *            indicates the bound, which must be positive
+      * @return the random integer
+      */
+     private int uniform(int n) {
+          RandomGenerator r = random != null ? random : ThreadLocalRandom.current();
+          long m = (r.nextInt() & 0xffffffffL) * n;
+          int low = (int) m;
+          if (Integer.compareUnsigned(low, n) < 0) {
+               // reject the few values that would bias the result
+               int threshold = (int) (0x100000000L % n);
+               while (Integer.compareUnsigned(low, threshold) < 0) {
+                    m = (r.nextInt() & 0xffffffffL) * n;
+                    low = (int) m;
+               }
+          }
+          return (int) (m >>> 32);
+     }
+
+     /**
+      * Checks if the randomized queue is empty or not
+      * 
+      * @return true if it is empty and false if it is not
+      */
+     public boolean isEmpty() // is the queue empty?
+     {
+          return N == 0;
+     }
+
+     /**
+      * Returns the number of values in randomized queue
+      * 
+      * @return the size of the randomized queue
+      */
+     public int size() // return the number of values on the queue
+     {
+          return N;
+     }
+
+     /**
+      * Resizes the array
+      * @param capacity indicates the new size of the array
+      */
+     private void resize(int capacity) {
+          assert capacity >= N;
+          long[] temp = new long[capacity];
+          System.arraycopy(a, 0, temp, 0, N);
+          a = temp;
+     }
+
+     /**
+      * Adds a value to the queue
+      * 
+      * @param value
+      *            indicates the value to be added
+      */
+     public void enqueue(long value) // add the value
+     {
+          if (N == a.length)
+               resize(2 * a.length); // double size of array if necessary
+          a[N++] = value;
+     }
+
+     /**
+      * Removes a value in the random order
+      * 
+      * @return a value removed
+      * @throws java.util.NoSuchElementException
+      *             if the value is removed form empty queue
+      */
+     public long dequeue() // remove and return a random value
+     {
+          if (isEmpty())
+               throw new NoSuchElementException("Empty Randomized Queue");
+          int m = uniform(N);
+          long value = a[m];
+          a[m] = a[N-1];
+          N--;
+          // shrink size of array if necessary
+          if (N > 0 && N == a.length / 4)
+               resize(a.length / 2);
+          return value;
+     }
+
+     /**
+      * Returns a value in the random order
+      * 
+      * @return a random value
+      * @throws java.util.NoSuchElementException
+      *             if the queue is empty
+      */
+     public long sample() // return (but do not remove) a random value
+     {
+          if (isEmpty())
+               throw new NoSuchElementException("Empty Randomized Queue");
+          return a[uniform(N)];
+     }
+
+     /**
+      * An iterator is returned
+      */
+     public PrimitiveIterator.OfLong iterator() // return an independent iterator
+                                               // over values in random order
+     {
+          return new RandomizedQueueIterator();
+     }
+
+     /**
+      * Iterator is implemented to iterate values in random order
+      */
+     private class RandomizedQueueIterator implements PrimitiveIterator.OfLong {
+          private final long[] aCopy;           // shuffled copy of the array
+          private int size;                     // number of values returned
+
+          /**
+           * constructs the copy of the array and shuffles it
+           */
+          public RandomizedQueueIterator() {
+               aCopy = new long[N];
+               System.arraycopy(a, 0, aCopy, 0, N);
+               // Fisher-Yates shuffle
+               for (int i = N - 1; i > 0; i--) {
+                    int j = uniform(i + 1);
+                    long tmp = aCopy[i];
+                    aCopy[i] = aCopy[j];
+                    aCopy[j] = tmp;
+               }
+          }
+
+          /**
+           * Returns true if there is a next element
+           */
+          public boolean hasNext() {
+               return size < aCopy.length;
+          }
+
+          /**
+           * Throws an exception if this is called
+           */
+          public void remove() {
+               throw new UnsupportedOperationException();
+          }
+
+          /**
+           * Iterates through the shuffled copy and returns the value
+           */
+          public long nextLong() {
+               if (!hasNext())
+                    throw new NoSuchElementException();
+
+               return aCopy[size++];
+          }
+     }
+
+     public static void main(String[] args) // unit testing
+     {
+     }
+}
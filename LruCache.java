@@ -0,0 +1,227 @@
+/****************************************************************************
+ *  Compilation:  javac LruCache.java
+ *  Execution:  java LruCache
+ *  Dependencies: Deque.java, java.util.HashMap.
+ *
+ *  LRU cache.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: LruCache.java
+ * Description: *The <tt>LruCache</tt> .java
+ * program is a bounded map that evicts the least recently used entries once
+ * the total weight of its entries goes over a limit. It supports get(),
+ * put() and remove() operations, reports each eviction to an optional
+ * listener and counts hits, misses and evictions.
+ * <p>
+ * This implementation uses a <tt>HashMap</tt> from each key to its handle
+ * in a <tt>Deque</tt> of entries kept in order from most to least recently
+ * used. A hit moves the entry to the front through its handle and an
+ * eviction removes the last entry, so every operation takes constant
+ * expected time. By default every entry weighs 1, which bounds the number
+ * of entries.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.HashMap;
+
+public class LruCache<K, V> {
+
+    /**
+     * Computes the weight of an entry
+     */
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /**
+     * Notified when an entry is evicted to make room
+     */
+    public interface EvictionListener<K, V> {
+        void onEviction(K key, V value);
+    }
+
+    // entry stored in the deque
+    private static class Entry<K, V> {
+        private final K key; // key of the entry
+        private V value; // value of the entry
+        private int weight; // weight of the entry
+
+        Entry(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final HashMap<K, Deque.Handle<Entry<K, V>>> map; // key to entry
+    private final Deque<Entry<K, V>> order; // most recently used first
+    private final long maxWeight; // weight limit
+    private final Weigher<K, V> weigher; // weight of each entry
+    private final EvictionListener<K, V> listener; // may be null
+    private long weight; // total weight of the entries
+    private long hits; // number of get() calls that found a value
+    private long misses; // number of get() calls that did not
+    private long evictions; // number of entries evicted
+
+    /**
+     * Constructs an empty cache holding at most maxSize entries
+     *
+     * @param maxSize
+     *            indicates the maximum number of entries
+     */
+    public LruCache(int maxSize) {
+        this(maxSize, new Weigher<K, V>() {
+            public int weigh(K key, V value) {
+                return 1;
+            }
+        }, null);
+    }
+
+    /**
+     * Constructs an empty cache whose entries weigh at most maxWeight in
+     * total
+     *
+     * @param maxWeight
+     *            indicates the maximum total weight
+     * @param weigher
+     *            indicates how each entry is weighed
+     * @param listener
+     *            indicates who to notify of evictions, may be null
+     * @throws java.lang.IllegalArgumentException
+     *             if maxWeight is negative
+     */
+    public LruCache(long maxWeight, Weigher<K, V> weigher,
+            EvictionListener<K, V> listener) {
+        if (maxWeight < 0)
+            throw new IllegalArgumentException("maxWeight is negative");
+        if (weigher == null)
+            throw new NullPointerException("weigher is null");
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.listener = listener;
+        map = new HashMap<K, Deque.Handle<Entry<K, V>>>();
+        order = new Deque<Entry<K, V>>();
+    }
+
+    /**
+     * Returns the value for the key and marks it as most recently used
+     *
+     * @param key
+     *            indicates the key to look up
+     * @return the value, or null if the key is not in the cache
+     */
+    public V get(K key) {
+        Deque.Handle<Entry<K, V>> handle = map.get(key);
+        if (handle == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        order.moveToFront(handle);
+        return handle.item().value;
+    }
+
+    /**
+     * Stores the value for the key as the most recently used entry, then
+     * evicts least recently used entries until the weight limit holds
+     *
+     * @param key
+     *            indicates the key
+     * @param value
+     *            indicates the value
+     * @return the previous value for the key, or null if there was none
+     * @throws java.lang.NullPointerException
+     *             if the key or value is null
+     * @throws java.lang.IllegalArgumentException
+     *             if the entry weighs less than 0
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException("key or value is null");
+        int w = weigher.weigh(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("negative weight");
+
+        V previous = null;
+        Deque.Handle<Entry<K, V>> handle = map.get(key);
+        if (handle == null) {
+            map.put(key, order.addFirstHandle(new Entry<K, V>(key, value, w)));
+        } else {
+            Entry<K, V> entry = handle.item();
+            previous = entry.value;
+            weight -= entry.weight;
+            entry.value = value;
+            entry.weight = w;
+            order.moveToFront(handle);
+        }
+        weight += w;
+
+        while (weight > maxWeight) {
+            Entry<K, V> eldest = order.removeLast();
+            map.remove(eldest.key);
+            weight -= eldest.weight;
+            evictions++;
+            if (listener != null)
+                listener.onEviction(eldest.key, eldest.value);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the entry for the key; the listener is not notified
+     *
+     * @param key
+     *            indicates the key
+     * @return the value removed, or null if the key was not in the cache
+     */
+    public V remove(K key) {
+        Deque.Handle<Entry<K, V>> handle = map.remove(key);
+        if (handle == null)
+            return null;
+        Entry<K, V> entry = order.remove(handle);
+        weight -= entry.weight;
+        return entry.value;
+    }
+
+    /**
+     * Returns the number of entries in the cache
+     */
+    public int size() {
+        return order.size();
+    }
+
+    /**
+     * Returns the total weight of the entries in the cache
+     */
+    public long weightedSize() {
+        return weight;
+    }
+
+    /**
+     * Returns the number of get() calls that found a value
+     */
+    public long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of get() calls that did not find a value
+     */
+    public long missCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted to respect the weight limit
+     */
+    public long evictionCount() {
+        return evictions;
+    }
+
+    public static void main(String[] args) // unit testing
+    {
+    }
+}
@@ -0,0 +1,191 @@
+/****************************************************************************
+ *  Compilation:  javac MappedTokenScanner.java
+ *  Execution:  none
+ *  Dependencies: java.nio.
+ *
+ *  Mapped token scanner.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: MappedTokenScanner.java
+ * Description: *The <tt>MappedTokenScanner</tt> .java
+ * program splits a file into whitespace-separated tokens, the same tokens
+ * <tt>TokenReader</tt> finds (<tt>split("[\\s]+")</tt> on the trimmed text,
+ * with no empty leading token), and reports each one as a byte
+ * offset and length in the file instead of a <tt>String</tt>. It supports
+ * advance(), start(), length(), skip() and token() operations.
+ * <p>
+ * This implementation memory-maps the file one window at a time and scans
+ * the bytes in place, so scanning allocates nothing and no byte is copied
+ * onto the heap. A token that runs past the end of a window is rescanned
+ * from its start in the next window, so a token must fit in a window. The
+ * whitespace bytes are all ASCII and never occur inside a UTF-8 encoded
+ * character, so splitting bytes splits the text correctly. token() decodes
+ * a token only when it is asked for.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedTokenScanner implements Closeable {
+    private static final int WINDOW = 1 << 28; // bytes mapped at a time
+
+    private final FileChannel channel; // file being scanned
+    private final long size; // size of the file
+    private MappedByteBuffer map; // current window
+    private long base; // file offset of the window
+    private int pos; // next byte to scan in the window
+    private int limit; // number of bytes in the window
+    private long start; // file offset of the current token
+    private int length; // byte length of the current token
+
+    /**
+     * Opens the file for scanning
+     *
+     * @param file
+     *            indicates the file to split into tokens
+     */
+    public MappedTokenScanner(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    /**
+     * same bytes as the regex class \s
+     */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f'
+                || b == 0x0B;
+    }
+
+    /**
+     * Maps the window starting at the given file offset
+     *
+     * @return false if the offset is at the end of the file
+     */
+    private boolean remap(long from) throws IOException {
+        if (from >= size)
+            return false;
+        long len = Math.min(WINDOW, size - from);
+        map = channel.map(FileChannel.MapMode.READ_ONLY, from, len);
+        base = from;
+        pos = 0;
+        limit = (int) len;
+        return true;
+    }
+
+    /**
+     * Skips whitespace up to the start of the next token
+     *
+     * @return false at the end of the file
+     */
+    private boolean skipSpace() throws IOException {
+        while (true) {
+            while (pos < limit && isSpace(map.get(pos)))
+                pos++;
+            if (pos < limit)
+                return true;
+            if (!remap(base + limit))
+                return false;
+        }
+    }
+
+    /**
+     * Moves to the next token
+     *
+     * @return true if there was a next token and false at the end of the
+     *         file
+     * @throws java.io.IOException
+     *             if a token is longer than a window
+     */
+    public boolean advance() throws IOException {
+        if (!skipSpace())
+            return false;
+        long tokenStart = base + pos;
+        while (true) {
+            while (pos < limit && !isSpace(map.get(pos)))
+                pos++;
+            if (pos < limit || base + limit >= size)
+                break;
+            // the token runs past the window: map again from its start
+            long scanned = base + limit - tokenStart;
+            if (scanned >= WINDOW)
+                throw new IOException("token longer than " + WINDOW + " bytes");
+            remap(tokenStart);
+            pos = (int) scanned;
+        }
+        start = tokenStart;
+        length = (int) (base + pos - tokenStart);
+        return true;
+    }
+
+    /**
+     * Returns the file offset of the current token
+     */
+    public long start() {
+        return start;
+    }
+
+    /**
+     * Returns the byte length of the current token
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Skips tokens without recording them
+     *
+     * @param n
+     *            indicates the number of tokens to skip
+     * @return the number of tokens skipped, less than n only at the end of
+     *         the file
+     */
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && skipSpace()) {
+            while (true) {
+                while (pos < limit && !isSpace(map.get(pos)))
+                    pos++;
+                if (pos < limit || !remap(base + limit))
+                    break;
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Decodes the token at the given position of the file
+     *
+     * @param start
+     *            indicates the file offset of the token
+     * @param length
+     *            indicates the byte length of the token
+     * @return the token as a string
+     */
+    public String token(long start, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0)
+                throw new IOException("token past the end of the file");
+        }
+        return new String(bytes.array(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Closes the file
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+}
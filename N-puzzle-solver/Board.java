@@ -9,22 +9,55 @@
 /**
  * Class Name: Board.java Description: The <tt>Board</tt> .java program
  * constructs a board from an N-by-N array of blocks. It supports dimension(),
- * hamming(), manhattan(), isGoal(), twin() and neighbors() operations. It
- * determines the number of blocks out of place through hamming() and sum of
- * distances between block and goal through manhattan().
+ * hamming(), manhattan(), linearConflict(), walkingDistance(), isGoal(),
+ * isSolvable(), twin() and neighbors() operations. It determines the number of blocks out
+ * of place through hamming() and sum of distances between block and goal
+ * through manhattan().
  * <p>
- * The methods run in time proportional to N^2 in the worst case. the
- * constructor receives an N-by-N array containing the N2 integers between 0 and
- * N^2 - 1, where 0 represents the blank square.
+ * The constructor receives an N-by-N array containing the N2 integers between
+ * 0 and N^2 - 1, where 0 represents the blank square, and runs in time
+ * proportional to N^2. The board is stored row by row in a single
+ * <tt>char[]</tt> of N^2 tiles, and the position of the blank, the Hamming
+ * and Manhattan distances and the hash code are computed once at
+ * construction, so dimension(), hamming(), manhattan(), isGoal() and
+ * hashCode() take constant time. neighbors() and twin() copy one array per
+ * board, and neighbors() updates the parent's distances for the one tile
+ * that moves instead of recomputing them.
+ * <p>
+ * The hash is a Zobrist hash: the exclusive or of a random 64-bit key for
+ * each (tile, position) pair, the blank included. A move replaces the pairs
+ * at two positions, so neighbors() updates the hash with four exclusive
+ * ors. The keys are the SplitMix64 mix of the pair rather than a
+ * stored table, so boards of every size share them and nothing has to be
+ * initialized.
+ * <p>
+ * linearConflict() adds to manhattan() two moves for each tile that must
+ * leave its goal row or column to let other tiles of that line pass: in
+ * each line, the tiles that belong there minus the longest run of them
+ * already in goal order. A vertical move only changes the two rows it
+ * touches, since tiles keep their order within a column, and a horizontal
+ * move the two columns, so neighbors() recomputes only those lines.
+ * walkingDistance() looks up a <tt>WalkingDistance</tt> table with row and
+ * column codes that neighbors() also updates per move; boards larger than
+ * WalkingDistance.MAX_DIMENSION fall back to manhattan().
  * 
  * @author Amulya Manchikanti
  * @date : 07/17/2015
  */
 
+import java.util.Arrays;
+
 public class Board {
 
-    private int length; // local copy of the size
-    private int[][] blocks; // local copy of the board
+    private final int length; // local copy of the size
+    private final char[] tiles; // tiles row by row, 0 for the blank
+    private final int blank; // index of the blank in tiles
+    private final int hamming; // number of blocks out of place
+    private final int manhattan; // sum of Manhattan distances to the goal
+    private final long zobrist; // Zobrist hash of the tiles
+    private final int conflicts; // linear conflict moves beyond manhattan
+    private final long rowCode; // walking distance code of the rows
+    private final long colCode; // walking distance code of the columns
 
     /**
      * constructs a board from an N-by-N array of blocks
@@ -37,21 +70,185 @@ public class Board {
                                     // (where blocks[i][j] = block in row i,
                                     // column j)
     {
-        length = blocks.length;
-        this.blocks = blocks;
+        this(blocks.length, flatten(blocks));
+    }
+
+    /**
+     * constructs a board from its tiles and computes its cached values
+     * 
+     * @param length
+     *            indicates the size of the board
+     * @param tiles
+     *            indicates the tiles row by row, which the board keeps
+     */
+    private Board(int length, char[] tiles) {
+        this.length = length;
+        this.tiles = tiles;
+        int blankAt = -1, hamcount = 0, mancount = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == 0) {
+                blankAt = i;
+                continue;
+            }
+            if (tiles[i] != i + 1)
+                hamcount++;
+            mancount += distance(tiles[i], i);
+        }
+        blank = blankAt;
+        hamming = hamcount;
+        manhattan = mancount;
+        long z = 0;
+        for (int i = 0; i < tiles.length; i++)
+            z ^= key(tiles[i], i);
+        zobrist = z;
+        int extra = 0;
+        for (int k = 0; k < length; k++)
+            extra += lineConflicts(tiles, k, true) + lineConflicts(tiles, k, false);
+        conflicts = extra;
+        long rows = 0, cols = 0;
+        if (length <= WalkingDistance.MAX_DIMENSION) {
+            for (int i = 0; i < tiles.length; i++) {
+                if (tiles[i] == 0)
+                    continue;
+                int goal = tiles[i] - 1;
+                rows += 1L << WalkingDistance.shift(length, i / length, goal / length);
+                cols += 1L << WalkingDistance.shift(length, i % length, goal % length);
+            }
+            rows = WalkingDistance.withBlank(rows, blankAt / length);
+            cols = WalkingDistance.withBlank(cols, blankAt % length);
+        }
+        rowCode = rows;
+        colCode = cols;
+    }
+
+    /**
+     * constructs a board whose distances are already known
+     * 
+     * @param length
+     *            indicates the size of the board
+     * @param tiles
+     *            indicates the tiles row by row, which the board keeps
+     * @param blank
+     *            indicates the index of the blank
+     * @param hamming
+     *            indicates the number of blocks out of place
+     * @param manhattan
+     *            indicates the sum of Manhattan distances
+     * @param zobrist
+     *            indicates the Zobrist hash of the tiles
+     * @param conflicts
+     *            indicates the linear conflict moves beyond manhattan
+     * @param rowCode
+     *            indicates the walking distance code of the rows
+     * @param colCode
+     *            indicates the walking distance code of the columns
+     */
+    private Board(int length, char[] tiles, int blank, int hamming,
+            int manhattan, long zobrist, int conflicts, long rowCode,
+            long colCode) {
+        this.length = length;
+        this.tiles = tiles;
+        this.blank = blank;
+        this.hamming = hamming;
+        this.manhattan = manhattan;
+        this.zobrist = zobrist;
+        this.conflicts = conflicts;
+        this.rowCode = rowCode;
+        this.colCode = colCode;
+    }
+
+    /**
+     * computes the Zobrist key of a tile at a position with SplitMix64
+     * 
+     * @param tile
+     *            indicates the tile, 0 for the blank
+     * @param index
+     *            indicates the position of the tile, row by row
+     * @return the random key of the pair
+     */
+    private static long key(int tile, int index) {
+        long z = ((long) tile << 32 | index) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * copies the blocks into one array, row by row
+     * 
+     * @param blocks
+     *            indicates the N-by-N array of blocks
+     * @return the tiles of the board
+     */
+    private static char[] flatten(int[][] blocks) {
+        int n = blocks.length;
+        char[] tiles = new char[n * n];
+        for (int i = 0; i < n; i++) {
+            if (blocks[i].length != n)
+                throw new IllegalArgumentException("blocks is not N-by-N");
+            for (int j = 0; j < n; j++) {
+                if (blocks[i][j] < 0 || blocks[i][j] >= n * n)
+                    throw new IllegalArgumentException("block out of range: "
+                            + blocks[i][j]);
+                tiles[i * n + j] = (char) blocks[i][j];
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * computes the Manhattan distance of a tile from its goal
+     * 
+     * @param tile
+     *            indicates the non-zero tile
+     * @param index
+     *            indicates where the tile is, row by row
+     * @return the number of rows and columns between the tile and its goal
+     */
+    private int distance(int tile, int index) {
+        int goal = tile - 1;
+        return Math.abs(index / length - goal / length)
+                + Math.abs(index % length - goal % length);
     }
 
     /**
-     * formula to represent the goal board
+     * computes the extra moves forced by tiles in their goal line but out of
+     * order: two for each tile outside the longest run in goal order
      * 
-     * @param x
-     *            indicates the row index
-     * @param y
-     *            indicates the column index
-     * @return the integer in the row, column index corresponding to goal board.
+     * @param tiles
+     *            indicates the tiles row by row
+     * @param line
+     *            indicates the index of the row or column
+     * @param row
+     *            indicates a row if true and a column if false
+     * @return twice the fewest tiles that must leave the line
      */
-    private int assignId(int x, int y) {
-        return (x * length + y + 1);
+    private int lineConflicts(char[] tiles, int line, boolean row) {
+        // patience sorting: tails[k] is the smallest end of a run of k + 1
+        int[] tails = new int[length];
+        int count = 0, longest = 0;
+        for (int k = 0; k < length; k++) {
+            int i = row ? line * length + k : k * length + line;
+            if (tiles[i] == 0)
+                continue;
+            int goal = tiles[i] - 1;
+            if ((row ? goal / length : goal % length) != line)
+                continue;
+            int position = row ? goal % length : goal / length;
+            count++;
+            int lo = 0, hi = longest;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tails[mid] < position)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            tails[lo] = position;
+            if (lo == longest)
+                longest++;
+        }
+        return 2 * (count - longest);
     }
 
     /**
@@ -64,6 +261,17 @@ public class Board {
         return length;
     }
 
+    /**
+     * returns the tile at a cell, for heuristics that look at the whole board
+     * 
+     * @param index
+     *            indicates the cell, row by row
+     * @return the tile in the cell, 0 for the blank
+     */
+    int tileAt(int index) {
+        return tiles[index];
+    }
+
     /**
      * computes the number of blocks out of place
      * 
@@ -71,17 +279,7 @@ public class Board {
      */
     public int hamming() // number of blocks out of place
     {
-        int hamcount = 0;
-        for (int i = 0; i < length; i++) {
-            for (int j = 0; j < length; j++) {
-
-                if (blocks[i][j] == 0)
-                    continue;
-                if (blocks[i][j] != assignId(i, j))
-                    hamcount++;
-            }
-        }
-        return hamcount;
+        return hamming;
     }
 
     /**
@@ -91,18 +289,31 @@ public class Board {
      */
     public int manhattan() // sum of Manhattan distances between blocks and goal
     {
-        int mancount = 0;
-        for (int i = 0; i < length; i++)
-            for (int j = 0; j < length; j++) {
-                if (blocks[i][j] == 0)
-                    continue;
-                else {
-                    int row = (blocks[i][j] - 1) / length;
-                    int col = (blocks[i][j] - 1) % length;
-                    mancount += Math.abs(i - row) + Math.abs(j - col);
-                }
-            }
-        return mancount;
+        return manhattan;
+    }
+
+    /**
+     * computes the manhattan distance plus the moves forced by linear
+     * conflicts
+     * 
+     * @return a lower bound on the moves to the goal, at least manhattan()
+     */
+    public int linearConflict() {
+        return manhattan + conflicts;
+    }
+
+    /**
+     * computes the walking distance, the fewest vertical moves plus the
+     * fewest horizontal moves that put every tile in its goal row and column
+     * 
+     * @return a lower bound on the moves to the goal, or manhattan() for
+     *         boards larger than WalkingDistance.MAX_DIMENSION
+     */
+    public int walkingDistance() {
+        if (length > WalkingDistance.MAX_DIMENSION)
+            return manhattan;
+        WalkingDistance table = WalkingDistance.of(length);
+        return table.distance(rowCode) + table.distance(colCode);
     }
 
     /**
@@ -112,9 +323,35 @@ public class Board {
      */
     public boolean isGoal() // is this board the goal board?
     {
-        if (hamming() == 0)
-            return true;
-        return false;
+        return hamming == 0;
+    }
+
+    /**
+     * finds out if the goal board can be reached from this board. Reading the
+     * blank as the tile that belongs in the last cell, each move swaps the
+     * blank with a neighbor, which flips the parity of the permutation of
+     * the cells and of the blank's manhattan distance to its goal cell
+     * together. The goal has both even, so a board is solvable exactly when
+     * the two parities agree, for every N; counting cycles gives the parity
+     * of the permutation in time proportional to N^2.
+     * 
+     * @return true if the board can be solved and false if not
+     */
+    public boolean isSolvable() {
+        int m = tiles.length;
+        boolean[] seen = new boolean[m];
+        int cycles = 0;
+        for (int i = 0; i < m; i++) {
+            if (seen[i])
+                continue;
+            cycles++;
+            // follow the cycle: the tile at cell j belongs at cell goal
+            for (int j = i; !seen[j]; j = tiles[j] == 0 ? m - 1 : tiles[j] - 1)
+                seen[j] = true;
+        }
+        int permutation = (m - cycles) & 1;
+        int distance = (length - 1 - blank / length) + (length - 1 - blank % length);
+        return permutation == (distance & 1);
     }
 
     /**
@@ -125,19 +362,19 @@ public class Board {
     public Board twin() // a board that is obtained by exchanging two adjacent
                         // blocks in the same row
     {
-        int[][] twin = copyBlocks();
+        char[] twin = tiles.clone();
 
         t: for (int i = 0; i < length; i++) {
-            for (int j = 0; j < length - 1; j++) {
-                if (twin[i][j] != 0 && twin[i][j + 1] != 0) {
-                    int tmp = twin[i][j + 1];
-                    twin[i][j + 1] = twin[i][j];
-                    twin[i][j] = tmp;
+            for (int j = i * length; j < (i + 1) * length - 1; j++) {
+                if (twin[j] != 0 && twin[j + 1] != 0) {
+                    char tmp = twin[j + 1];
+                    twin[j + 1] = twin[j];
+                    twin[j] = tmp;
                     break t;
                 }
             }
         }
-        return new Board(twin);
+        return new Board(length, twin);
     }
 
     /**
@@ -154,31 +391,60 @@ public class Board {
             return false;
 
         Board that = (Board) y;
+        return this.zobrist == that.zobrist && this.length == that.length
+                && Arrays.equals(this.tiles, that.tiles);
+    }
 
-        if (that.dimension() != this.dimension())
-            return false;
-
-        for (int i = 0; i < length; i++) {
-            for (int j = 0; j < length; j++) {
-                if (this.blocks[i][j] != that.blocks[i][j])
-                    return false;
-            }
-        }
-        return true;
+    /**
+     * returns the Zobrist hash folded to 32 bits, consistent with equals()
+     */
+    public int hashCode() {
+        return (int) (zobrist ^ (zobrist >>> 32));
     }
 
     /**
-     * creates the copy of the board
+     * creates the board with the blank moved to the given index
      * 
-     * @return the copied board
+     * @param to
+     *            indicates the index of the tile that slides into the blank
+     * @return the neighboring board
      */
-    private int[][] copyBlocks() {
-        int[][] copy = new int[length][length];
-        for (int i = 0; i < length; i++)
-            for (int j = 0; j < length; j++)
-                copy[i][j] = blocks[i][j];
+    private Board slide(int to) {
+        char[] neigh = tiles.clone();
+        char tile = neigh[to];
+        neigh[blank] = tile;
+        neigh[to] = 0;
+        // only the moved tile changes its distance and whether it is in place
+        int ham = hamming - (tile != to + 1 ? 1 : 0) + (tile != blank + 1 ? 1 : 0);
+        int man = manhattan - distance(tile, to) + distance(tile, blank);
+        long z = zobrist ^ key(tile, to) ^ key(0, blank) ^ key(tile, blank)
+                ^ key(0, to);
+
+        // a vertical move changes two rows, a horizontal one two columns
+        boolean vertical = to % length == blank % length;
+        int from = vertical ? to / length : to % length;
+        int into = vertical ? blank / length : blank % length;
+        int extra = conflicts - lineConflicts(tiles, from, vertical)
+                - lineConflicts(tiles, into, vertical)
+                + lineConflicts(neigh, from, vertical)
+                + lineConflicts(neigh, into, vertical);
 
-        return copy;
+        long rows = rowCode, cols = colCode;
+        if (length <= WalkingDistance.MAX_DIMENSION) {
+            int goal = tile - 1;
+            if (vertical) {
+                int g = goal / length;
+                rows += (1L << WalkingDistance.shift(length, into, g))
+                        - (1L << WalkingDistance.shift(length, from, g));
+                rows = WalkingDistance.withBlank(rows, from);
+            } else {
+                int g = goal % length;
+                cols += (1L << WalkingDistance.shift(length, into, g))
+                        - (1L << WalkingDistance.shift(length, from, g));
+                cols = WalkingDistance.withBlank(cols, from);
+            }
+        }
+        return new Board(length, neigh, to, ham, man, z, extra, rows, cols);
     }
 
     /**
@@ -189,44 +455,16 @@ public class Board {
     public Iterable<Board> neighbors() // all neighboring boards
     {
         Queue<Board> boards = new Queue<Board>();
-        for (int i = 0; i < length; i++) {
-            for (int j = 0; j < length; j++) {
-                if (blocks[i][j] == 0) {
-                    if (i > 0) // top neighbor existence
-                    {
-                        int[][] neigh1 = copyBlocks();
-                        neigh1[i][j] = neigh1[i - 1][j];
-                        neigh1[i - 1][j] = 0;
-                        boards.enqueue(new Board(neigh1));
-                    }
-                    if (j > 0) // left neighbor existence
-                    {
-                        int[][] neigh2 = copyBlocks();
-                        neigh2[i][j] = neigh2[i][j - 1];
-                        neigh2[i][j - 1] = 0;
-                        boards.enqueue(new Board(neigh2));
-                    }
-                    if (i < length - 1) // down neighbor existence
-                    {
-                        int[][] neigh3 = copyBlocks();
-                        neigh3[i][j] = neigh3[i + 1][j];
-                        neigh3[i + 1][j] = 0;
-                        boards.enqueue(new Board(neigh3));
-                    }
-                    if (j < length - 1) // right neighbor existence
-                    {
-                        int[][] neigh4 = copyBlocks();
-                        neigh4[i][j] = neigh4[i][j + 1];
-                        neigh4[i][j + 1] = 0;
-                        boards.enqueue(new Board(neigh4));
-                    }
-
-                    return boards;
-                }
-            }
-
-        }
-        return null;
+        int i = blank / length, j = blank % length;
+        if (i > 0) // top neighbor existence
+            boards.enqueue(slide(blank - length));
+        if (j > 0) // left neighbor existence
+            boards.enqueue(slide(blank - 1));
+        if (i < length - 1) // down neighbor existence
+            boards.enqueue(slide(blank + length));
+        if (j < length - 1) // right neighbor existence
+            boards.enqueue(slide(blank + 1));
+        return boards;
     }
 
     /**
@@ -239,7 +477,7 @@ public class Board {
         s.append(length + "\n");
         for (int i = 0; i < length; i++) {
             for (int j = 0; j < length; j++) {
-                s.append(String.format("%2d ", blocks[i][j]));
+                s.append(String.format("%2d ", (int) tiles[i * length + j]));
             }
             s.append("\n");
         }
@@ -0,0 +1,70 @@
+/****************************************************************************
+ *  Compilation:  javac Heuristic.java
+ *  Execution:  none
+ *  Dependencies: Board.java
+ *
+ *  Heuristic.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: Heuristic.java Description: The <tt>Heuristic</tt> .java
+ * interface estimates the number of moves from a board to the goal board,
+ * for <tt>Solver</tt> to add to the moves already made. An estimate that
+ * never exceeds the true number of moves keeps the solutions found by
+ * Solver shortest; a larger estimate that is still a lower bound makes it
+ * expand fewer boards.
+ * <p>
+ * MANHATTAN, HAMMING, LINEAR_CONFLICT and WALKING_DISTANCE read the values
+ * <tt>Board</tt> keeps up to date as it moves, so each takes constant time.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/17/2015
+ */
+
+public interface Heuristic {
+
+    /**
+     * estimates the moves from the board to the goal
+     *
+     * @param board
+     *            indicates the board to estimate
+     * @return a lower bound on the number of moves to the goal
+     */
+    int estimate(Board board);
+
+    /**
+     * sum of Manhattan distances between blocks and goal
+     */
+    Heuristic MANHATTAN = new Heuristic() {
+        public int estimate(Board board) {
+            return board.manhattan();
+        }
+    };
+
+    /**
+     * number of blocks out of place
+     */
+    Heuristic HAMMING = new Heuristic() {
+        public int estimate(Board board) {
+            return board.hamming();
+        }
+    };
+
+    /**
+     * Manhattan distance plus row and column conflicts
+     */
+    Heuristic LINEAR_CONFLICT = new Heuristic() {
+        public int estimate(Board board) {
+            return board.linearConflict();
+        }
+    };
+
+    /**
+     * walking distance, or Manhattan distance on boards larger than 4-by-4
+     */
+    Heuristic WALKING_DISTANCE = new Heuristic() {
+        public int estimate(Board board) {
+            return board.walkingDistance();
+        }
+    };
+}
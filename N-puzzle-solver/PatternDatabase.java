@@ -0,0 +1,419 @@
+/****************************************************************************
+ *  Compilation:  javac PatternDatabase.java
+ *  Execution:  java PatternDatabase N out.pdb tile1 tile2 ...
+ *              java PatternDatabase 4 a.pdb 1 5 6 9 10 13
+ *  Dependencies: Board.java Heuristic.java java.nio
+ *
+ *  Pattern database.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: PatternDatabase.java
+ * Description: The <tt>PatternDatabase</tt> .java program builds, saves and
+ * loads the pattern database of a group of tiles: for every placement of
+ * those tiles on an N-by-N board, the fewest moves of those tiles that bring
+ * them to their goal positions, the other tiles being indistinguishable and
+ * their moves free. It supports build(), load(), estimate() and additive()
+ * operations.
+ * <p>
+ * build() runs a breadth first search backwards from the goal over
+ * (placement, blank) states, where moving the blank into an empty cell costs
+ * nothing and moving it into a tile of the group costs one, so each layer
+ * of equal cost is closed under free moves before the next is started. A
+ * placement is ranked as a partial permutation: the i-th tile's cell among
+ * the cells not taken by the tiles before it, read as a mixed-radix number,
+ * so the P = M! / (M - k)! placements of k tiles on M cells index a dense
+ * table.
+ * <p>
+ * Every move of a tile of the group changes its manhattan distance by one,
+ * so a placement's moves minus the manhattan distance of its tiles is even
+ * and small. The table stores half of it, capped at 15, in 4 bits per
+ * placement, after a header of the magic number, N, k and the k tiles. A
+ * capped value is smaller than the true one, so the estimate stays a lower
+ * bound. load() maps the file read-only, so opening a table is immediate and
+ * processes that load the same file share one copy of it in memory.
+ * <p>
+ * Groups with no tile in common count disjoint sets of moves, so additive()
+ * sums their estimates into one heuristic that is still a lower bound, for
+ * example with groups of 6, 6 and 3 tiles for the 4-by-4 board.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/17/2015
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class PatternDatabase implements Heuristic {
+    private static final int MAGIC = 0x50444231; // "PDB1"
+    private static final int CAP = 15; // largest value a nibble holds
+
+    private final int length; // dimension of the boards
+    private final int[] tiles; // tiles of the group
+    private final MappedByteBuffer data; // the mapped file
+    private final int offset; // start of the nibbles in data
+
+    private PatternDatabase(int length, int[] tiles, MappedByteBuffer data,
+            int offset) {
+        this.length = length;
+        this.tiles = tiles;
+        this.data = data;
+        this.offset = offset;
+    }
+
+    /**
+     * computes the number of placements of k tiles on m cells
+     *
+     * @throws java.lang.IllegalArgumentException
+     *             if the table would be too large to index
+     */
+    private static int placements(int m, int k) {
+        long p = 1;
+        for (int i = 0; i < k; i++) {
+            p *= m - i;
+            if (p * m > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("pattern of " + k
+                        + " tiles is too large for N^2 = " + m);
+        }
+        return (int) p;
+    }
+
+    /**
+     * ranks the cells of the tiles as a partial permutation
+     *
+     * @param cells
+     *            indicates the cell of each tile of the group, in order
+     * @param m
+     *            indicates the number of cells on the board
+     * @return the index of the placement in the table
+     */
+    private static int rank(int[] cells, int m) {
+        int rank = 0;
+        for (int i = 0; i < cells.length; i++) {
+            int r = cells[i];
+            for (int j = 0; j < i; j++) {
+                if (cells[j] < cells[i])
+                    r--;
+            }
+            rank = rank * (m - i) + r;
+        }
+        return rank;
+    }
+
+    /**
+     * recovers the cells of the tiles from the rank of their placement
+     */
+    private static void unrank(int rank, int m, int[] cells, boolean[] used) {
+        int k = cells.length;
+        for (int i = k - 1; i >= 0; i--) {
+            cells[i] = rank % (m - i); // cell among the unused, for now
+            rank /= m - i;
+        }
+        Arrays.fill(used, false);
+        for (int i = 0; i < k; i++) {
+            int c = -1;
+            for (int r = cells[i]; r >= 0; r--) {
+                do {
+                    c++;
+                } while (used[c]);
+            }
+            cells[i] = c;
+            used[c] = true;
+        }
+    }
+
+    /**
+     * computes the manhattan distance of the tiles of the group
+     */
+    private static int manhattan(int[] tiles, int[] cells, int n) {
+        int sum = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            int goal = tiles[i] - 1;
+            sum += Math.abs(cells[i] / n - goal / n)
+                    + Math.abs(cells[i] % n - goal % n);
+        }
+        return sum;
+    }
+
+    /**
+     * checks that the tiles are distinct tiles of an N-by-N board
+     */
+    private static void checkTiles(int n, int[] tiles) {
+        boolean[] seen = new boolean[n * n];
+        for (int tile : tiles) {
+            if (tile < 1 || tile >= n * n || seen[tile])
+                throw new IllegalArgumentException("bad tile in pattern: " + tile);
+            seen[tile] = true;
+        }
+    }
+
+    /**
+     * builds the pattern database of a group of tiles and writes it to a file
+     *
+     * @param n
+     *            indicates the dimension of the boards
+     * @param tiles
+     *            indicates the tiles of the group
+     * @param file
+     *            indicates where to write the table
+     * @throws java.lang.IllegalArgumentException
+     *             if the tiles are not distinct tiles of the board or the
+     *             search space is too large to index
+     */
+    public static void build(int n, int[] tiles, Path file) throws IOException {
+        checkTiles(n, tiles);
+        int m = n * n, k = tiles.length;
+        int size = placements(m, k);
+        byte[] table = new byte[size];
+        Arrays.fill(table, (byte) -1);
+        long[] visited = new long[(int) (((long) size * m + 63) >>> 6)];
+
+        int[] cells = new int[k];
+        for (int i = 0; i < k; i++)
+            cells[i] = tiles[i] - 1;
+        int[] layer = { rank(cells, m) * m + (m - 1) };
+        int count = 1; // states in layer
+        int cost = 0;
+
+        int[] occupant = new int[m];
+        boolean[] used = new boolean[m];
+        int[] moves = new int[4];
+        while (count > 0) {
+            int[] next = new int[16];
+            int nextCount = 0;
+            // states carried from the last layer may have been reached again;
+            // states added by free moves below are marked when added
+            int carried = count;
+            for (int s = 0; s < count; s++) {
+                int state = layer[s];
+                if (s < carried) {
+                    if (isSet(visited, state))
+                        continue;
+                    set(visited, state);
+                }
+                int rank = state / m, blank = state % m;
+                if (table[rank] == -1)
+                    table[rank] = (byte) cost;
+                unrank(rank, m, cells, used);
+                Arrays.fill(occupant, -1);
+                for (int i = 0; i < k; i++)
+                    occupant[cells[i]] = i;
+
+                int nmoves = 0;
+                if (blank >= n)
+                    moves[nmoves++] = blank - n;
+                if (blank < m - n)
+                    moves[nmoves++] = blank + n;
+                if (blank % n > 0)
+                    moves[nmoves++] = blank - 1;
+                if (blank % n < n - 1)
+                    moves[nmoves++] = blank + 1;
+                for (int j = 0; j < nmoves; j++) {
+                    int to = moves[j];
+                    int tile = occupant[to];
+                    if (tile < 0) {
+                        // free move: the blank stays in this layer
+                        int free = rank * m + to;
+                        if (!isSet(visited, free)) {
+                            set(visited, free);
+                            if (count == layer.length)
+                                layer = Arrays.copyOf(layer, 2 * count);
+                            layer[count++] = free;
+                        }
+                    } else {
+                        cells[tile] = blank;
+                        int moved = rank(cells, m) * m + to;
+                        cells[tile] = to;
+                        if (!isSet(visited, moved)) {
+                            if (nextCount == next.length)
+                                next = Arrays.copyOf(next, 2 * nextCount);
+                            next[nextCount++] = moved;
+                        }
+                    }
+                }
+            }
+            layer = next;
+            count = nextCount;
+            cost++;
+        }
+
+        // store half the excess over manhattan, capped to a nibble
+        byte[] packed = new byte[(size + 1) / 2];
+        for (int rank = 0; rank < size; rank++) {
+            unrank(rank, m, cells, used);
+            int excess = ((table[rank] & 0xFF) - manhattan(tiles, cells, n)) / 2;
+            int nibble = Math.min(excess, CAP);
+            packed[rank >>> 1] |= (byte) (nibble << ((rank & 1) << 2));
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeInt(k);
+            for (int tile : tiles)
+                out.writeInt(tile);
+            out.write(packed);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static boolean isSet(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * maps a pattern database written by build()
+     *
+     * @param file
+     *            indicates the table to load
+     * @return the pattern database
+     * @throws java.io.IOException
+     *             if the file is not a pattern database
+     */
+    public static PatternDatabase load(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            if (data.limit() < 12 || data.getInt(0) != MAGIC)
+                throw new IOException("not a pattern database: " + file);
+            int n = data.getInt(4), k = data.getInt(8);
+            if (n < 2 || k < 1 || k >= n * n || data.limit() < 12 + 4 * k)
+                throw new IOException("corrupt pattern database: " + file);
+            int[] tiles = new int[k];
+            for (int i = 0; i < k; i++)
+                tiles[i] = data.getInt(12 + 4 * i);
+            int size;
+            try {
+                checkTiles(n, tiles);
+                size = placements(n * n, k);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("corrupt pattern database: " + file, e);
+            }
+            int offset = 12 + 4 * k;
+            if (data.limit() != offset + (size + 1) / 2)
+                throw new IOException("corrupt pattern database: " + file);
+            return new PatternDatabase(n, tiles, data, offset);
+        } finally {
+            channel.close(); // the mapping stays valid
+        }
+    }
+
+    /**
+     * returns the dimension of the boards of this table
+     */
+    public int dimension() {
+        return length;
+    }
+
+    /**
+     * returns a copy of the tiles of the group
+     */
+    public int[] tiles() {
+        return tiles.clone();
+    }
+
+    /**
+     * looks up the placement of the group
+     *
+     * @param where
+     *            indicates the cell of every tile of the board
+     * @return the fewest moves of the tiles of the group to their goals
+     */
+    private int lookup(int[] where) {
+        int[] cells = new int[tiles.length];
+        for (int i = 0; i < tiles.length; i++)
+            cells[i] = where[tiles[i]];
+        int rank = rank(cells, length * length);
+        int nibble = (data.get(offset + (rank >>> 1)) >>> ((rank & 1) << 2)) & CAP;
+        return manhattan(tiles, cells, length) + 2 * nibble;
+    }
+
+    /**
+     * finds the cell of every tile of the board
+     */
+    private static int[] cells(Board board) {
+        int m = board.dimension() * board.dimension();
+        int[] where = new int[m];
+        for (int i = 0; i < m; i++)
+            where[board.tileAt(i)] = i;
+        return where;
+    }
+
+    /**
+     * estimates the moves from the board to the goal from this group alone
+     *
+     * @throws java.lang.IllegalArgumentException
+     *             if the board is not of this table's dimension
+     */
+    public int estimate(Board board) {
+        if (board.dimension() != length)
+            throw new IllegalArgumentException("pattern database is for N = " + length);
+        return lookup(cells(board));
+    }
+
+    /**
+     * sums the estimates of groups with no tile in common
+     *
+     * @param groups
+     *            indicates the pattern databases of the groups
+     * @return the additive heuristic
+     * @throws java.lang.IllegalArgumentException
+     *             if the groups share a tile or are for different dimensions
+     */
+    public static Heuristic additive(PatternDatabase... groups) {
+        if (groups.length == 0)
+            throw new IllegalArgumentException("no pattern databases");
+        final PatternDatabase[] tables = groups.clone();
+        final int n = tables[0].length;
+        boolean[] seen = new boolean[n * n];
+        for (PatternDatabase table : tables) {
+            if (table.length != n)
+                throw new IllegalArgumentException("pattern databases for different N");
+            for (int tile : table.tiles) {
+                if (seen[tile])
+                    throw new IllegalArgumentException("tile " + tile
+                            + " is in more than one pattern");
+                seen[tile] = true;
+            }
+        }
+        return new Heuristic() {
+            public int estimate(Board board) {
+                if (board.dimension() != n)
+                    throw new IllegalArgumentException("pattern database is for N = " + n);
+                int[] where = cells(board);
+                int sum = 0;
+                for (PatternDatabase table : tables)
+                    sum += table.lookup(where);
+                return sum;
+            }
+        };
+    }
+
+    public static void main(String[] args) throws IOException // build a table
+    {
+        int n = Integer.parseInt(args[0]);
+        int[] tiles = new int[args.length - 2];
+        for (int i = 0; i < tiles.length; i++)
+            tiles[i] = Integer.parseInt(args[i + 2]);
+        long start = System.currentTimeMillis();
+        build(n, tiles, Paths.get(args[1]));
+        StdOut.println("built " + args[1] + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -1,7 +1,9 @@
 /****************************************************************************
  *  Compilation:  javac Solver.java
- *  Execution:  java Solver T
- *  Dependencies: StdIn.java StdOut.java MinPQ.java
+ *  Execution:  java Solver T [manhattan|hamming|linear|walking]
+ *              java Solver T a.pdb b.pdb ...
+ *  Dependencies: StdIn.java StdOut.java MinPQ.java Heuristic.java
+ *                PatternDatabase.java
  *
  *  Solver.
  *
@@ -10,38 +12,51 @@
  * Class Name: Solver.java 
  * Description: The <tt>Solver</tt> .java program finds solution to the
  * board using A* search algorithm. It supports isSolvable(), moves(), 
- * solution() operations. It computes manhattan distance using manhattan()
- * and uses minimum priority queue to remove the node with the least
- * priority. 
+ * solution() operations. The priority of a search node is the number of
+ * moves made to reach it plus the estimate of a <tt>Heuristic</tt> for its
+ * board, the manhattan distance unless another is given, and a minimum
+ * priority queue removes the node with the least priority. The priority is
+ * computed once per node.
  * <p>
- * The algorithm is applied on two puzzle instances simultaneously; one
- * with the initial board and other with its twin to compute the solvability
- * of the board.
+ * Each search keeps a closed set: a hash map from every board it has reached
+ * to the fewest moves it has been reached in. A board is inserted again only
+ * when it is reached in fewer moves, and a node whose board has since been
+ * reached in fewer moves is dropped when it is removed. With a consistent
+ * heuristic such as the manhattan distance, every board is expanded at most
+ * once.
+ * <p>
+ * Whether the board can be solved is decided before searching by
+ * Board.isSolvable(), in time proportional to N^2, so an unsolvable board
+ * is rejected at once and only the initial board is ever searched.
  * 
  * @author Amulya Manchikanti
  * @date : 07/17/2015
  */
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Comparator;
+import java.util.HashMap;
 
 public class Solver {
-    private boolean solvable, tsolvable; // to determine if the board is
-                                            // solvable or not
+    private boolean solvable; // to determine if the board is solvable or not
     private MinPQ<Node> queue; // to store the elements in the priority queue
                                 // for the given input board
-    private MinPQ<Node> tqueue; // to store the elements in PQ for the twin
-                                // board
-    private int moves = 0; // to store number of moves
-    // private int tmoves = 0;
+    private HashMap<Board, Integer> closed; // fewest moves to each board
     private Node endnode; // to mark the endnode
+    private final Heuristic heuristic; // estimate of the moves left
 
     private class Node {
         Board board;
         Node prev;
+        int moves; // number of moves from the initial board
+        int priority; // moves plus the estimate of the moves left
 
         Node(Board board, Node prev) {
             this.board = board;
             this.prev = prev;
+            this.moves = prev == null ? 0 : prev.moves + 1;
+            this.priority = moves + heuristic.estimate(board);
         }
 
     }
@@ -55,28 +70,39 @@ public class Solver {
     public Solver(Board initial) // find a solution to the initial board (using
                                     // the A* algorithm)
     {
-        if (initial == null)
+        this(initial, Heuristic.MANHATTAN);
+    }
+
+    /**
+     * find a solution to the initial board guided by the given heuristic
+     * 
+     * @param initial
+     *            represents the board constructed
+     * @param heuristic
+     *            represents the estimate of the moves left, which must never
+     *            exceed the true number for the solution to be shortest
+     */
+    public Solver(Board initial, Heuristic heuristic) {
+        if (initial == null || heuristic == null)
             throw new NullPointerException("null argument received");
+        this.heuristic = heuristic;
 
         solvable = false;
-        tsolvable = false;
+        if (!initial.isSolvable())
+            return;
 
         queue = new MinPQ<Node>(myComp);
-        tqueue = new MinPQ<Node>(myComp);
-
-        Board tboard = initial.twin();
-        Node tinit = new Node(tboard, null);
-        tqueue.insert(tinit);
+        closed = new HashMap<Board, Integer>();
 
         Node init = new Node(initial, null);
         queue.insert(init);
+        closed.put(initial, 0);
 
-        while (!solvable && !tsolvable) {
-            solvable = solve(queue);
-            if (solvable == false)
-                moves++;
-            tsolvable = solve(tqueue);
-        }
+        while (!solvable && !queue.isEmpty())
+            solvable = solve(queue, closed);
+        // the search is no longer needed once the goal is found
+        queue = null;
+        closed = null;
 
     }
 
@@ -85,37 +111,42 @@ public class Solver {
      * 
      * @param q
      *            represents priority queue
-     * @return true if goal has reached for either given input or twin board and
-     *         false if it hasn't.
+     * @param best
+     *            represents the fewest moves to each board reached so far
+     * @return true if goal has reached and false if it hasn't.
      */
-    private boolean solve(MinPQ<Node> q) {
+    private boolean solve(MinPQ<Node> q, HashMap<Board, Integer> best) {
         Node current = q.delMin();
 
-        if (current.board.isGoal() == true) {
+        // a shorter path to this board has been found since it was inserted
+        if (best.get(current.board) < current.moves)
+            return false;
+
+        if (current.board.isGoal()) {
             endnode = current;
             return true;
         }
 
         for (Board b : current.board.neighbors()) {
-            // createnode(b, current)
-            Node qneigh = new Node(b, current);
-
-           
-            if (qneigh != current.prev)
-                q.insert(qneigh);
+            Integer moves = best.get(b);
+            if (moves == null || current.moves + 1 < moves) {
+                best.put(b, current.moves + 1);
+                q.insert(new Node(b, current));
+            }
         }
-        // moves++;
-        // tmoves++;
 
         return false;
     }
 
     /**
-     * comparator to find the node with minimum manhattan distance
+     * comparator to find the node with minimum priority, preferring the one
+     * closer to the goal among equals
      */
     private static Comparator<Node> myComp = new Comparator<Node>() {
         public int compare(Node n1, Node n2) {
-            return (n1.board.manhattan() - n2.board.manhattan());
+            if (n1.priority != n2.priority)
+                return n1.priority - n2.priority;
+            return n2.moves - n1.moves;
         }
     };
 
@@ -141,10 +172,10 @@ public class Solver {
     public int moves() // min number of moves to solve initial board; -1 if
                         // unsolvable
     {
-        if (tsolvable == true)
+        if (!solvable)
             return -1;
         else
-            return moves;
+            return endnode.moves;
     }
 
     /**
@@ -156,7 +187,7 @@ public class Solver {
                                         // solution; null if unsolvable
     {
 
-        if (tsolvable == true)
+        if (!solvable)
             return null;
         Node copyEndnode;
         copyEndnode = endnode;
@@ -169,7 +200,7 @@ public class Solver {
         return sboards;
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         In in = new In(args[0]);
         int N = in.readInt();
         int[][] blocks = new int[N][N];
@@ -178,8 +209,25 @@ public class Solver {
                 blocks[i][j] = in.readInt();
         Board initial = new Board(blocks);
 
+        Heuristic heuristic = Heuristic.MANHATTAN;
+        if (args.length > 1) {
+            if (args[1].equals("hamming"))
+                heuristic = Heuristic.HAMMING;
+            else if (args[1].equals("linear"))
+                heuristic = Heuristic.LINEAR_CONFLICT;
+            else if (args[1].equals("walking"))
+                heuristic = Heuristic.WALKING_DISTANCE;
+            else if (!args[1].equals("manhattan")) {
+                // the other arguments are disjoint pattern databases
+                PatternDatabase[] groups = new PatternDatabase[args.length - 1];
+                for (int i = 1; i < args.length; i++)
+                    groups[i - 1] = PatternDatabase.load(Paths.get(args[i]));
+                heuristic = PatternDatabase.additive(groups);
+            }
+        }
+
         // solve the puzzle
-        Solver solver = new Solver(initial);
+        Solver solver = new Solver(initial, heuristic);
 
         // print solution to standard output
         if (!solver.isSolvable())
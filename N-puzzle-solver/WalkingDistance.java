@@ -0,0 +1,177 @@
+/****************************************************************************
+ *  Compilation:  javac WalkingDistance.java
+ *  Execution:  java WalkingDistance 4
+ *  Dependencies: StdOut.java java.util.
+ *
+ *  Walking distance table.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: WalkingDistance.java
+ * Description: *The <tt>WalkingDistance</tt> .java
+ * program computes the walking distance of N-by-N boards for N up to 4.
+ * Looking only at rows, a board is reduced to an N-by-N matrix counting, for
+ * each row, how many of its tiles belong in each goal row, along with the row
+ * of the blank. A vertical move takes a tile from a row next to the blank
+ * into the blank's row. The walking distance of a row matrix is the fewest
+ * such moves that reach the goal matrix, and the same table read with
+ * columns in place of rows gives the horizontal moves, since the goal board
+ * is symmetric about its diagonal. Every move is vertical or horizontal, so
+ * the sum of the two is a lower bound on the number of moves.
+ * <p>
+ * A matrix is encoded in a <tt>long</tt> as one 3-bit count per (row, goal
+ * row) cell with the row of the blank above bit 48, so a board can update
+ * its code for a move with a few additions. The table is built by breadth
+ * first search from the goal matrix the first time it is needed for each N
+ * (24964 matrices for N = 4) and is stored in an open-addressing hash table
+ * of primitive keys and distances.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/17/2015
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class WalkingDistance {
+    public static final int MAX_DIMENSION = 4; // largest N with a table
+    static final int BLANK_SHIFT = 48; // bit where the blank's row starts
+
+    private static final WalkingDistance[] TABLES = new WalkingDistance[MAX_DIMENSION + 1];
+
+    private final long[] keys; // codes of the matrices, -1 for empty slots
+    private final byte[] distances; // walking distance of each code
+    private final int mask; // number of slots minus one
+
+    /**
+     * builds the table of every matrix reachable from the goal
+     *
+     * @param n
+     *            indicates the dimension of the boards
+     */
+    private WalkingDistance(int n) {
+        Map<Long, Integer> dist = new HashMap<Long, Integer>();
+        long[] queue = new long[16];
+        int head = 0, tail = 0;
+
+        long goal = (long) (n - 1) << BLANK_SHIFT;
+        for (int r = 0; r < n; r++)
+            goal += (long) (r == n - 1 ? n - 1 : n) << shift(n, r, r);
+        dist.put(goal, 0);
+        queue[tail++] = goal;
+
+        while (head < tail) {
+            long code = queue[head++];
+            int d = dist.get(code);
+            int blank = (int) (code >>> BLANK_SHIFT);
+            for (int next = blank - 1; next <= blank + 1; next += 2) {
+                if (next < 0 || next >= n)
+                    continue;
+                for (int g = 0; g < n; g++) {
+                    if (count(code, n, next, g) == 0)
+                        continue;
+                    // a tile of goal row g moves from row next into row blank
+                    long moved = code - (1L << shift(n, next, g))
+                            + (1L << shift(n, blank, g));
+                    moved = withBlank(moved, next);
+                    if (!dist.containsKey(moved)) {
+                        dist.put(moved, d + 1);
+                        if (tail == queue.length)
+                            queue = Arrays.copyOf(queue, 2 * tail);
+                        queue[tail++] = moved;
+                    }
+                }
+            }
+        }
+
+        int slots = Integer.highestOneBit(Math.max(1, dist.size()) * 2) * 2;
+        keys = new long[slots];
+        distances = new byte[slots];
+        mask = slots - 1;
+        Arrays.fill(keys, -1L);
+        for (Map.Entry<Long, Integer> e : dist.entrySet()) {
+            int i = slot(e.getKey());
+            while (keys[i] != -1L)
+                i = (i + 1) & mask;
+            keys[i] = e.getKey();
+            distances[i] = (byte) (int) e.getValue();
+        }
+    }
+
+    /**
+     * returns the table for N-by-N boards, building it on first use
+     *
+     * @param n
+     *            indicates the dimension, at most MAX_DIMENSION
+     * @return the walking distance table
+     */
+    public static synchronized WalkingDistance of(int n) {
+        if (n < 1 || n > MAX_DIMENSION)
+            throw new IllegalArgumentException("no walking distance table for N = " + n);
+        if (TABLES[n] == null)
+            TABLES[n] = new WalkingDistance(n);
+        return TABLES[n];
+    }
+
+    /**
+     * returns the bit where the count of (row, goal row) starts
+     */
+    static int shift(int n, int row, int goal) {
+        return 3 * (row * n + goal);
+    }
+
+    /**
+     * returns the number of tiles in the row that belong in the goal row
+     */
+    private static int count(long code, int n, int row, int goal) {
+        return (int) (code >>> shift(n, row, goal)) & 7;
+    }
+
+    /**
+     * returns the code with the blank moved to the given row
+     */
+    static long withBlank(long code, int row) {
+        return (code & ((1L << BLANK_SHIFT) - 1)) | ((long) row << BLANK_SHIFT);
+    }
+
+    private int slot(long code) {
+        long z = code * 0x9E3779B97F4A7C15L;
+        return (int) (z >>> 32) & mask;
+    }
+
+    /**
+     * looks up the walking distance of an encoded matrix
+     *
+     * @param code
+     *            indicates the matrix of a board's rows or columns
+     * @return the fewest moves along that dimension that reach the goal
+     * @throws java.lang.IllegalArgumentException
+     *             if the code is not a matrix of a board of this size
+     */
+    public int distance(long code) {
+        for (int i = slot(code);; i = (i + 1) & mask) {
+            if (keys[i] == code)
+                return distances[i];
+            if (keys[i] == -1L)
+                throw new IllegalArgumentException("not a walking distance code");
+        }
+    }
+
+    /**
+     * returns the number of matrices in the table
+     */
+    public int size() {
+        int size = 0;
+        for (long key : keys)
+            if (key != -1L)
+                size++;
+        return size;
+    }
+
+    public static void main(String[] args) // unit testing
+    {
+        int n = Integer.parseInt(args[0]);
+        StdOut.println(of(n).size() + " matrices for N = " + n);
+    }
+}
@@ -0,0 +1,203 @@
+/****************************************************************************
+ *  Compilation:  javac QueueBenchmark.java
+ *  Execution:  java -Xmx4g QueueBenchmark [maxExponent]
+ *  Dependencies: Deque.java, ResizingArrayDeque.java, RandomizedQueue.java,
+ *                StdOut.java, java.lang.management.
+ *
+ *  Queue benchmark.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: QueueBenchmark.java
+ * Description: *The <tt>QueueBenchmark</tt> .java
+ * program measures the time and the memory allocated per operation of
+ * <tt>Deque</tt>, <tt>ResizingArrayDeque</tt> and <tt>RandomizedQueue</tt>
+ * against <tt>java.util.ArrayDeque</tt>, for sizes from 10 to 10^7. It
+ * covers addFirst(), addLast(), removeFirst(), removeLast(), enqueue(),
+ * dequeue(), sample(), and constructing and traversing an iterator.
+ * <p>
+ * Each benchmark fills or drains a structure of size n, repeated until
+ * enough operations have run, after warmup rounds so the JIT has compiled
+ * the code being measured. Time is wall clock time per operation and
+ * allocation is the number of bytes the measuring thread allocated per
+ * operation, read from <tt>com.sun.management.ThreadMXBean</tt>, the same
+ * counter the JMH GC profiler reports as gc.alloc.rate.norm. Results are
+ * printed as one row per benchmark and size.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+public class QueueBenchmark {
+    private static final long MIN_OPS = 20000000L; // operations per round
+    private static final int WARMUP = 3; // rounds before measuring
+    private static final int ROUNDS = 5; // rounds measured
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static int blackhole; // consumes results so they are not dead code
+
+    /**
+     * One benchmark: runs the operation being measured on a structure of
+     * size n and returns the number of operations performed
+     */
+    private interface Benchmark {
+        long run(int n);
+    }
+
+    /**
+     * Runs the benchmark for size n and prints its ns/op and bytes/op
+     */
+    private static void measure(String name, int n, Benchmark benchmark) {
+        long repeats = Math.max(1, MIN_OPS / n);
+        for (int w = 0; w < WARMUP; w++)
+            for (long r = 0; r < repeats; r++)
+                benchmark.run(n);
+
+        long threadId = Thread.currentThread().getId();
+        long ops = 0;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++)
+            for (long r = 0; r < repeats; r++)
+                ops += benchmark.run(n);
+        long elapsed = System.nanoTime() - start;
+        bytes = THREADS.getThreadAllocatedBytes(threadId) - bytes;
+
+        StdOut.println(String.format("%-40s %10d %10.2f ns/op %10.2f B/op",
+                name, n, (double) elapsed / ops, (double) bytes / ops));
+    }
+
+    public static void main(String[] args) {
+        int maxExponent = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        final Integer item = 42;
+
+        for (int e = 1; e <= maxExponent; e++) {
+            int n = 1;
+            for (int i = 0; i < e; i++)
+                n *= 10;
+
+            measure("Deque.addFirst", n, new Benchmark() {
+                public long run(int n) {
+                    Deque<Integer> d = new Deque<Integer>();
+                    for (int i = 0; i < n; i++)
+                        d.addFirst(item);
+                    blackhole += d.size();
+                    return n;
+                }
+            });
+            measure("Deque.addLast+removeFirst", n, new Benchmark() {
+                public long run(int n) {
+                    Deque<Integer> d = new Deque<Integer>();
+                    for (int i = 0; i < n; i++)
+                        d.addLast(item);
+                    for (int i = 0; i < n; i++)
+                        blackhole += d.removeFirst();
+                    return 2L * n;
+                }
+            });
+            measure("Deque.addLast+removeLast", n, new Benchmark() {
+                public long run(int n) {
+                    Deque<Integer> d = new Deque<Integer>();
+                    for (int i = 0; i < n; i++)
+                        d.addLast(item);
+                    for (int i = 0; i < n; i++)
+                        blackhole += d.removeLast();
+                    return 2L * n;
+                }
+            });
+            measure("ResizingArrayDeque.addLast+removeFirst", n, new Benchmark() {
+                public long run(int n) {
+                    ResizingArrayDeque<Integer> d = new ResizingArrayDeque<Integer>();
+                    for (int i = 0; i < n; i++)
+                        d.addLast(item);
+                    for (int i = 0; i < n; i++)
+                        blackhole += d.removeFirst();
+                    return 2L * n;
+                }
+            });
+            measure("ArrayDeque.addLast+removeFirst", n, new Benchmark() {
+                public long run(int n) {
+                    ArrayDeque<Integer> d = new ArrayDeque<Integer>();
+                    for (int i = 0; i < n; i++)
+                        d.addLast(item);
+                    for (int i = 0; i < n; i++)
+                        blackhole += d.removeFirst();
+                    return 2L * n;
+                }
+            });
+            measure("Deque.iterator", n, new Benchmark() {
+                private Deque<Integer> d;
+
+                public long run(int n) {
+                    if (d == null || d.size() != n) {
+                        d = new Deque<Integer>();
+                        for (int i = 0; i < n; i++)
+                            d.addLast(item);
+                    }
+                    for (Integer x : d)
+                        blackhole += x;
+                    return n;
+                }
+            });
+            measure("RandomizedQueue.enqueue+dequeue", n, new Benchmark() {
+                public long run(int n) {
+                    RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
+                    for (int i = 0; i < n; i++)
+                        q.enqueue(item);
+                    for (int i = 0; i < n; i++)
+                        blackhole += q.dequeue();
+                    return 2L * n;
+                }
+            });
+            measure("RandomizedQueue.sample", n, new Benchmark() {
+                private RandomizedQueue<Integer> q;
+
+                public long run(int n) {
+                    if (q == null || q.size() != n) {
+                        q = new RandomizedQueue<Integer>();
+                        for (int i = 0; i < n; i++)
+                            q.enqueue(item);
+                    }
+                    for (int i = 0; i < n; i++)
+                        blackhole += q.sample();
+                    return n;
+                }
+            });
+            measure("RandomizedQueue.iterator", n, new Benchmark() {
+                private RandomizedQueue<Integer> q;
+
+                public long run(int n) {
+                    if (q == null || q.size() != n) {
+                        q = new RandomizedQueue<Integer>();
+                        for (int i = 0; i < n; i++)
+                            q.enqueue(item);
+                    }
+                    for (Iterator<Integer> it = q.iterator(); it.hasNext();)
+                        blackhole += it.next();
+                    return n;
+                }
+            });
+            measure("RandomizedQueue.iterator first", n, new Benchmark() {
+                private RandomizedQueue<Integer> q;
+
+                public long run(int n) {
+                    if (q == null || q.size() != n) {
+                        q = new RandomizedQueue<Integer>();
+                        for (int i = 0; i < n; i++)
+                            q.enqueue(item);
+                    }
+                    blackhole += q.iterator().next();
+                    return 1;
+                }
+            });
+        }
+        if (blackhole == 1)
+            StdOut.println();
+    }
+}
@@ -1,7 +1,10 @@
 /****************************************************************************
  *  Compilation:  javac RandomizedQueue.java
  *  Execution:  java RandomizedDeque
- *  Dependencies: StdRandom.java, java.util.Iterator and java.util.NoSuchElementException.
+ *  Dependencies: java.lang.ref.WeakReference, java.util.Arrays,
+ *                java.util.HashMap, java.util.Iterator,
+ *                java.util.NoSuchElementException, java.util.Spliterator,
+ *                java.util.random and java.util.stream.
  *
  *  Randomized Queue.
  *
@@ -11,32 +14,112 @@
  * Description: *The <tt>RandomizedQueue</tt> .java
  * program supports adding items at the end and the item to be removed is 
  * chosen uniformly at random from items in the data structure.  It supports 
- * enqueue(), dequeue(), sample() operations. It also has an iterator which
- * iterates over items in random order.
+ * enqueue(), dequeue(), sample() operations, and batch forms of dequeue()
+ * and sample() that pick k distinct items in one pass. It also has an
+ * iterator which iterates over items in random order, and a sized
+ * spliterator so the items can be streamed in parallel.
  * <p>
- * This implementation uses resizing array. Each randomized queue operation 
- * other than creating an iterator takes constant amortized time and use space
- * proportional to the number of items currently in the queue. Iterator implementation 
- * supports operations next() and hasNext() in constant worst-case time; and 
- * construction in linear time.
+ * This implementation uses resizing array. Each randomized queue operation
+ * takes constant amortized time and use space proportional to the number of
+ * items currently in the queue; the batch operations take time proportional
+ * to k plus at most one resize. Iterator implementation supports
+ * construction and hasNext() in constant time. It shuffles lazily, one
+ * Fisher-Yates step per next(), reading the queue's own array and recording
+ * only the swapped slots in a sparse map, so taking the first k items of an
+ * iterator of an unchanged queue costs time and space proportional to k.
+ * <p>
+ * Iterators never see later changes to the queue. Creating an iterator
+ * takes a snapshot, and while a snapshot is in use every slot of a[0..n)
+ * that the queue overwrites has its old item saved in the newest snapshot's
+ * undo log, once per slot, so a change costs constant extra time and space.
+ * An iterator reads a slot from its own snapshot's log, then from the logs
+ * of the snapshots taken after it, then from the array, so next() also
+ * costs one lookup for each later snapshot in whose time the queue changed.
+ * The queue holds the newest snapshot weakly and stops logging once no
+ * iterator can read it; a resize leaves the old array to its iterators.
+ * <p>
+ * Random choices come from a pluggable <tt>RandomGenerator</tt>. By default
+ * each thread uses its own <tt>ThreadLocalRandom</tt>, so queues used from
+ * different threads do not contend on one generator; a seed or a generator
+ * can be passed in to make a run reproducible. Indices are drawn with
+ * Lemire's multiply-shift method, which is unbiased and needs no division
+ * except on a rare rejection path.
  * 
  * @author Amulya Manchikanti
  * @date : 07/03/2015
  */
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.Spliterators;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
      private Item[] a;                         // array of items
      private int N;                            // number of elements on stack
+     private final RandomGenerator random;     // null for ThreadLocalRandom
+     private WeakReference<Snapshot> newest;   // last snapshot of a[], if any
 
      /**
       * Constructs an empty randomized queue
       */
      public RandomizedQueue() // construct an empty randomized queue
      {
+          this((RandomGenerator) null);
+     }
+
+     /**
+      * Constructs an empty randomized queue whose random choices are
+      * reproducible from the seed
+      * 
+      * @param seed
+      *            indicates the seed of the random generator
+      */
+     public RandomizedQueue(long seed) {
+          this(new SplittableRandom(seed));
+     }
+
+     /**
+      * Constructs an empty randomized queue using the given random generator
+      * 
+      * @param random
+      *            indicates the generator, or null to use the calling
+      *            thread's ThreadLocalRandom
+      */
+     public RandomizedQueue(RandomGenerator random) {
           a = (Item[]) new Object[2];
+          this.random = random;
+     }
+
+     /**
+      * Returns a uniformly random integer in [0, n) without modulo bias,
+      * using Lemire's multiply-shift method
+      * 
+      * @param n
+      *            indicates the bound, which must be positive
+      * @return the random integer
+      */
+     private int uniform(int n) {
+          RandomGenerator r = random != null ? random : ThreadLocalRandom.current();
+          long m = (r.nextInt() & 0xffffffffL) * n;
+          int low = (int) m;
+          if (Integer.compareUnsigned(low, n) < 0) {
+               // reject the few values that would bias the result
+               int threshold = (int) (0x100000000L % n);
+               while (Integer.compareUnsigned(low, threshold) < 0) {
+                    m = (r.nextInt() & 0xffffffffL) * n;
+                    low = (int) m;
+               }
+          }
+          return (int) (m >>> 32);
      }
 
      /**
@@ -71,6 +154,22 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
                temp[i] = a[i];
           }
           a = temp;
+          newest = null; // the old array is no longer written
+     }
+
+     /**
+      * Writes an item to slot i, first saving the old one in the undo log of
+      * the newest snapshot if an iterator may still read that slot
+      */
+     private void set(int i, Item item) {
+          Snapshot snapshot = newest == null ? null : newest.get();
+          if (snapshot != null && i < snapshot.n) {
+               if (snapshot.saved == null)
+                    snapshot.saved = new HashMap<Integer, Item>();
+               if (!snapshot.saved.containsKey(i))
+                    snapshot.saved.put(i, a[i]);
+          }
+          a[i] = item;
      }
 
      /**
@@ -87,7 +186,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
                throw new NullPointerException("Item is null");
           if (N == a.length)
                resize(2 * a.length); // double size of array if necessary
-          a[N++] = item;
+          set(N++, item);
      }
 
      /**
@@ -101,10 +200,10 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      {
           if (isEmpty())
                throw new NoSuchElementException("Empty Randomized Queue");
-          int m = StdRandom.uniform(N);
+          int m = uniform(N);
           Item item = a[m];
-          a[m] = a[N-1];
-          a[N-1] = null;
+          set(m, a[N-1]);
+          set(N-1, null);
           N--;
           // shrink size of array if necessary
           if (N > 0 && N == a.length / 4)
@@ -124,43 +223,249 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
          if (isEmpty())
              throw new NoSuchElementException("Empty Randomized Queue");
         
-          int m = StdRandom.uniform(N);
+          int m = uniform(N);
           Item item = a[m];
           return item;
      }
 
+     /**
+      * Checks the arguments of a batch operation
+      */
+     private void checkBatch(int k, Item[] dst) {
+          if (dst == null)
+               throw new NullPointerException("Array is null");
+          if (k < 0)
+               throw new IllegalArgumentException("k is negative");
+          if (k > dst.length)
+               throw new IllegalArgumentException("Array is too small");
+          if (k > N)
+               throw new NoSuchElementException("Fewer than k items in Randomized Queue");
+     }
+
+     /**
+      * Removes k distinct elements in random order
+      * 
+      * @param k
+      *            indicates the number of items to remove
+      * @return the items removed
+      * @throws java.util.NoSuchElementException
+      *             if the queue has fewer than k items
+      */
+     public Iterable<Item> dequeue(int k) // remove and return k random items
+     {
+          return Arrays.asList(dequeue(k, (Item[]) new Object[k]));
+     }
+
+     /**
+      * Removes k distinct elements in random order into dst[0..k). This is a
+      * partial Fisher-Yates shuffle over the tail of the array: each step
+      * moves a random remaining item out and the last item into its slot.
+      * The array is resized at most once, after all k items are out; if all
+      * the items are taken, they are shuffled into dst in bulk and the array
+      * is dropped.
+      * 
+      * @param k
+      *            indicates the number of items to remove
+      * @param dst
+      *            indicates the array to write the items to
+      * @return dst
+      * @throws java.util.NoSuchElementException
+      *             if the queue has fewer than k items
+      */
+     public Item[] dequeue(int k, Item[] dst) // remove k random items into dst
+     {
+          checkBatch(k, dst);
+          if (k == N && k > 0) {
+               System.arraycopy(a, 0, dst, 0, N);
+               for (int i = N - 1; i > 0; i--) {
+                    int j = uniform(i + 1);
+                    Item tmp = dst[i];
+                    dst[i] = dst[j];
+                    dst[j] = tmp;
+               }
+               a = (Item[]) new Object[2];
+               newest = null;
+               N = 0;
+               return dst;
+          }
+
+          for (int i = 0; i < k; i++) {
+               int last = N - 1 - i;
+               int m = uniform(last + 1);
+               dst[i] = a[m];
+               set(m, a[last]);
+               set(last, null);
+          }
+          N -= k;
+          // shrink size of array once, as far as the one-quarter rule allows
+          int capacity = a.length;
+          while (N > 0 && N <= capacity / 4)
+               capacity /= 2;
+          if (capacity != a.length)
+               resize(capacity);
+          return dst;
+     }
+
+     /**
+      * Returns k distinct elements in random order, without removing them
+      * 
+      * @param k
+      *            indicates the number of items to return
+      * @return the items
+      * @throws java.util.NoSuchElementException
+      *             if the queue has fewer than k items
+      */
+     public Iterable<Item> sample(int k) // return k distinct random items
+     {
+          return Arrays.asList(sample(k, (Item[]) new Object[k]));
+     }
+
+     /**
+      * Writes k distinct elements in random order to dst[0..k), without
+      * removing them. This is a partial Fisher-Yates shuffle over the tail of
+      * the array, which leaves the items in the queue in a different order.
+      * 
+      * @param k
+      *            indicates the number of items to return
+      * @param dst
+      *            indicates the array to write the items to
+      * @return dst
+      * @throws java.util.NoSuchElementException
+      *             if the queue has fewer than k items
+      */
+     public Item[] sample(int k, Item[] dst) // write k random items to dst
+     {
+          checkBatch(k, dst);
+          for (int i = 0; i < k; i++) {
+               int last = N - 1 - i;
+               int m = uniform(last + 1);
+               Item item = a[m];
+               set(m, a[last]);
+               set(last, item);
+               dst[i] = item;
+          }
+          return dst;
+     }
+
      /**
       * An iterator is returned
       */
      public Iterator<Item> iterator() // return an independent iterator over
                                                   // items in random order
      {
-          return new RandomizedQueueIterator();
+          Snapshot last = newest == null ? null : newest.get();
+          // an unchanged snapshot of the same items can be shared
+          if (last != null && last.saved == null && last.n == N)
+               return new RandomizedQueueIterator(last);
+          Snapshot snapshot = new Snapshot(a, N);
+          if (last != null)
+               last.next = snapshot;
+          newest = new WeakReference<Snapshot>(snapshot);
+          return new RandomizedQueueIterator(snapshot);
+     }
+
+     /**
+      * Copies the items into a new array and shuffles it
+      *
+      * @return the shuffled copy, exactly N long
+      */
+     private Item[] shuffledCopy() {
+          Item[] copy = (Item[]) new Object[N];
+          for (int i = 0; i < N; i++)
+               copy[i] = a[i];
+          // Fisher-Yates shuffle
+          for (int i = N - 1; i > 0; i--) {
+               int j = uniform(i + 1);
+               Item tmp = copy[i];
+               copy[i] = copy[j];
+               copy[j] = tmp;
+          }
+          return copy;
+     }
+
+     /**
+      * A spliterator is returned over a shuffled copy of the items, which
+      * splits the copy into balanced halves
+      */
+     @Override
+     public Spliterator<Item> spliterator() // return an independent spliterator
+                                            // over items in random order
+     {
+          return Spliterators.spliterator(shuffledCopy(), 0, N,
+                    Spliterator.NONNULL);
+     }
+
+     /**
+      * Returns a sequential stream over the items in random order
+      */
+     public Stream<Item> stream() {
+          return StreamSupport.stream(spliterator(), false);
+     }
+
+     /**
+      * Returns a parallel stream over the items in random order
+      */
+     public Stream<Item> parallelStream() {
+          return StreamSupport.stream(spliterator(), true);
+     }
+
+     /**
+      * The items a[0..n) as they were when an iterator was created, kept as
+      * the old items of the slots written since
+      */
+     private class Snapshot {
+          final Item[] items;                  // the queue's array when taken
+          final int n;                         // number of items when taken
+          HashMap<Integer, Item> saved;        // old items of written slots
+          Snapshot next;                       // next snapshot of the same array
+
+          Snapshot(Item[] items, int n) {
+               this.items = items;
+               this.n = n;
+          }
+
+          /**
+           * Returns the item slot i held when the snapshot was taken: a slot
+           * not written before the next snapshot held the same item then
+           */
+          Item get(int i) {
+               for (Snapshot s = this;; s = s.next) {
+                    if (s.saved != null && s.saved.containsKey(i))
+                         return s.saved.get(i);
+                    if (s.next == null)
+                         return s.items[i];
+               }
+          }
      }
 
      /**
       * Iterator is implemented to iterate items in order
       */
      private class RandomizedQueueIterator implements Iterator<Item> {
-          private Item[] aCopy;                 // copy of the array to shuffle
-          private int size;                     // loval copy of size
+          private Snapshot snapshot;            // the items to shuffle
+          private final int n;                  // number of items to return
+          private int size;                     // number of items returned
+          private HashMap<Integer, Item> swapped; // slots changed by the shuffle
+
+          public RandomizedQueueIterator(Snapshot snapshot) {
+               this.snapshot = snapshot;
+               this.n = snapshot.n;
+               size = 0;
+          }
 
           /**
-           * constructs the copy of the array and shuffles it
+           * Returns the item currently in slot i of the virtual shuffled array
            */
-          public RandomizedQueueIterator() {
-               size = 0;
-               aCopy = (Item[]) new Object[N];
-               for (int i = 0; i < N; i++)
-                    aCopy[i] = a[i];
-               StdRandom.shuffle(aCopy);
+          private Item get(int i) {
+               Item item = swapped == null ? null : swapped.get(i);
+               return item != null ? item : snapshot.get(i);
           }
 
           /**
            * Returns true if there is a next element
            */
           public boolean hasNext() {
-               return size <= N-1;
+               return size < n;
           }
 
           /**
@@ -171,13 +476,26 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
           }
 
           /**
-           * Iterates through the items in the linked list and returns the value
+           * Performs one Fisher-Yates step: picks a random slot among those not
+           * returned yet and moves the item in the current slot into it
            */
           public Item next() {
                if (!hasNext())
                     throw new NoSuchElementException();
 
-               return aCopy[size++];
+               int j = size + uniform(n - size);
+               Item item = get(j);
+               if (j != size) {
+                    if (swapped == null)
+                         swapped = new HashMap<Integer, Item>();
+                    swapped.put(j, get(size));
+               }
+               if (swapped != null)
+                    swapped.remove(size);
+               size++;
+               if (size == n)
+                    snapshot = null; // let the queue stop logging for it
+               return item;
           }
      }
 
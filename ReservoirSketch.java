@@ -0,0 +1,226 @@
+/****************************************************************************
+ *  Compilation:  javac ReservoirSketch.java
+ *  Execution:  none
+ *  Dependencies: KeyHeap.java, TokenReader.java, java.io, java.util.random.
+ *
+ *  Reservoir sketch.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: ReservoirSketch.java
+ * Description: *The <tt>ReservoirSketch</tt> .java
+ * program keeps a uniform random sample of k tokens from a stream in a form
+ * that can be merged with sketches of other streams. It supports add(),
+ * addAll(), merge(), sample(), writeTo() and readFrom() operations.
+ * <p>
+ * This implementation gives every token an independent uniform random key
+ * and keeps the k tokens with the largest keys in a <tt>KeyHeap</tt>, along
+ * with the number of tokens seen. Since the keys of all tokens in all
+ * streams are independent, the k largest keys of the union of several
+ * sketches are exactly the sketch of the concatenated streams, so merge()
+ * is exact. addAll() does not draw a key per token: once the reservoir is
+ * full with smallest key t, the gap to the next token whose key beats t is
+ * geometric with success probability 1 - t, and that token's key is
+ * uniform in (t, 1); skipped tokens are never turned into strings. Sorting
+ * by key also orders the sample uniformly at random.
+ * <p>
+ * The binary form written by writeTo() is a magic number, k, the count,
+ * the sample size, then each key followed by its token in UTF-8 prefixed by
+ * its length.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.random.RandomGenerator;
+
+public class ReservoirSketch {
+    private static final int MAGIC = 0x52535631; // "RSV1"
+
+    private final KeyHeap<String> heap; // k tokens with the largest keys
+    private long count; // number of tokens seen
+
+    /**
+     * Constructs an empty sketch of k tokens
+     *
+     * @param k
+     *            indicates the size of the sample
+     */
+    public ReservoirSketch(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("k is negative");
+        heap = new KeyHeap<String>(k);
+    }
+
+    /**
+     * Returns the size of the sample the sketch keeps
+     */
+    public int k() {
+        return heap.capacity();
+    }
+
+    /**
+     * Returns the number of tokens the sketch has seen
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Adds one token
+     *
+     * @param token
+     *            indicates the token to add
+     * @param random
+     *            indicates the random generator for its key
+     */
+    public void add(String token, RandomGenerator random) {
+        if (token == null)
+            throw new NullPointerException("Item is null");
+        count++;
+        heap.offer(random.nextDouble(), token);
+    }
+
+    /**
+     * Adds every token of the stream, jumping over the tokens that would not
+     * enter the sample
+     *
+     * @param in
+     *            indicates the tokens to add
+     * @param random
+     *            indicates the random generator for the keys
+     */
+    public void addAll(TokenReader in, RandomGenerator random)
+            throws IOException {
+        while (!heap.isFull()) {
+            if (!in.advance())
+                return;
+            add(in.token(), random);
+        }
+        if (heap.capacity() == 0) {
+            count += in.skip(Long.MAX_VALUE);
+            return;
+        }
+        while (true) {
+            double t = heap.minKey();
+            double u = 1.0 - random.nextDouble(); // in (0, 1]
+            double gap = Math.floor(Math.log(u) / Math.log(t));
+            long skip = gap < Long.MAX_VALUE ? (long) gap : Long.MAX_VALUE;
+            long skipped = in.skip(skip);
+            count += skipped;
+            if (skipped < skip || !in.advance())
+                return;
+            count++;
+            heap.replaceMin(t + (1.0 - t) * random.nextDouble(), in.token());
+        }
+    }
+
+    /**
+     * Merges the sketches of several streams into the sketch of their
+     * concatenation. The result keeps the smallest k of the sketches. Two
+     * independent streams almost never draw the same key, so an entry whose
+     * key has already been offered is taken to be the same token of a sketch
+     * given twice and is skipped; the count still adds up every sketch.
+     *
+     * @param sketches
+     *            indicates the sketches to merge
+     * @return the merged sketch
+     */
+    public static ReservoirSketch merge(ReservoirSketch... sketches) {
+        int k = Integer.MAX_VALUE;
+        for (ReservoirSketch sketch : sketches)
+            k = Math.min(k, sketch.k());
+        ReservoirSketch merged = new ReservoirSketch(sketches.length == 0 ? 0 : k);
+        HashSet<Double> offered = new HashSet<Double>();
+        for (ReservoirSketch sketch : sketches) {
+            merged.count += sketch.count;
+            for (int i = 0; i < sketch.heap.size(); i++) {
+                if (offered.add(sketch.heap.key(i)))
+                    merged.heap.offer(sketch.heap.key(i), sketch.heap.item(i));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the sampled tokens in uniformly random order
+     *
+     * @return min(k, count) distinct positions of the stream
+     */
+    public String[] sample() {
+        return heap.itemsByDecreasingKey(new String[heap.size()]);
+    }
+
+    /**
+     * Writes the sketch in its binary form
+     *
+     * @param out
+     *            indicates where to write the sketch
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(heap.capacity());
+        out.writeLong(count);
+        out.writeInt(heap.size());
+        for (int i = 0; i < heap.size(); i++) {
+            byte[] bytes = heap.item(i).getBytes(StandardCharsets.UTF_8);
+            out.writeDouble(heap.key(i));
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a sketch written by writeTo()
+     *
+     * @param in
+     *            indicates where to read the sketch from
+     * @return the sketch
+     * @throws java.io.IOException
+     *             if the input is not a sketch
+     */
+    public static ReservoirSketch readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("not a reservoir sketch");
+        int k = in.readInt();
+        long count = in.readLong();
+        int size = in.readInt();
+        if (k < 0 || size < 0 || size > k || count < size)
+            throw new IOException("corrupt reservoir sketch");
+        // the heap grows with the entries read, so a corrupt k costs nothing
+        ReservoirSketch sketch = new ReservoirSketch(k);
+        sketch.count = count;
+        for (int i = 0; i < size; i++) {
+            double key = in.readDouble();
+            int length = in.readInt();
+            if (length < 0)
+                throw new IOException("corrupt reservoir sketch");
+            byte[] bytes = readBytes(in, length);
+            sketch.heap.insert(key, new String(bytes, StandardCharsets.UTF_8));
+        }
+        return sketch;
+    }
+
+    /**
+     * Reads the given number of bytes in chunks, so a corrupt length runs
+     * into the end of the input before it can exhaust memory
+     */
+    private static byte[] readBytes(DataInput in, int length) throws IOException {
+        byte[] bytes = new byte[Math.min(length, 1 << 16)];
+        int read = 0;
+        while (read < length) {
+            if (read == bytes.length)
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * read));
+            int chunk = bytes.length - read;
+            in.readFully(bytes, read, chunk);
+            read += chunk;
+        }
+        return bytes;
+    }
+}
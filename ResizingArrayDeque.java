@@ -0,0 +1,204 @@
+/****************************************************************************
+ *  Compilation:  javac ResizingArrayDeque.java
+ *  Execution:  java ResizingArrayDeque
+ *  Dependencies: java.util.Iterator and java.util.NoSuchElementException.
+ *
+ *  Resizing array deque.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: ResizingArrayDeque.java
+ * Description: *The <tt>ResizingArrayDeque</tt> .java
+ * program supports the same operations as <tt>Deque</tt>: addFirst(),
+ * addLast(), removeFirst(), removeLast() and an iterator which iterates over
+ * items in order from front to end.
+ * <p>
+ * This implementation uses a circular resizing array instead of a doubly
+ * linked list, so no node is allocated per item. The array doubles when it
+ * is full and halves when it is one-quarter full; its length is always a
+ * power of two so wrapping around is a mask instead of a division. Each
+ * operation takes constant amortized time and removed slots are cleared so
+ * the items can be garbage collected. The iterator walks the array
+ * sequentially and takes constant worst-case time per operation.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class ResizingArrayDeque<Item> implements Iterable<Item> {
+    private Item[] a; // circular array of items
+    private int head; // index of the first item
+    private int N; // size of the deque
+
+    /**
+     * Constructs an empty deque
+     */
+    public ResizingArrayDeque() // construct an empty deque
+    {
+        a = (Item[]) new Object[2];
+        head = 0;
+        N = 0;
+    }
+
+    /**
+     * Checks if the deque is empty or not
+     *
+     * @return true if it is empty and false if it is not
+     */
+    public boolean isEmpty() // is the deque empty?
+    {
+        return N == 0;
+    }
+
+    /**
+     * Returns the number of items in deque
+     *
+     * @return the size of the deque
+     */
+    public int size() // return the number of items on the deque
+    {
+        return N;
+    }
+
+    /**
+     * Resizes the array, moving the first item to index 0
+     *
+     * @param capacity
+     *            indicates the new size of the array, a power of two
+     */
+    private void resize(int capacity) {
+        assert capacity >= N;
+        Item[] temp = (Item[]) new Object[capacity];
+        int mask = a.length - 1;
+        for (int i = 0; i < N; i++) {
+            temp[i] = a[(head + i) & mask];
+        }
+        a = temp;
+        head = 0;
+    }
+
+    /**
+     * Adds an element to the front of the deque
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public void addFirst(Item item) // add the item to the front
+    {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        if (N == a.length)
+            resize(2 * a.length); // double size of array if necessary
+        head = (head - 1) & (a.length - 1);
+        a[head] = item;
+        N++;
+    }
+
+    /**
+     * Adds an element at the end of the deque
+     *
+     * @param item
+     *            indicates the value to be added
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public void addLast(Item item) // add the item to the end
+    {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        if (N == a.length)
+            resize(2 * a.length); // double size of array if necessary
+        a[(head + N) & (a.length - 1)] = item;
+        N++;
+    }
+
+    /**
+     * Removes an element from the beginning of the deque
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeFirst() // remove and return the item from the front
+    {
+        if (isEmpty())
+            throw new NoSuchElementException("Empty Queue");
+        Item item = a[head];
+        a[head] = null; // to avoid loitering
+        head = (head + 1) & (a.length - 1);
+        N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4)
+            resize(a.length / 2);
+        return item;
+    }
+
+    /**
+     * Removes an element from the end of the deque
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeLast() // remove and return the item from the end
+    {
+        if (isEmpty())
+            throw new NoSuchElementException("Empty Queue");
+        int tail = (head + N - 1) & (a.length - 1);
+        Item item = a[tail];
+        a[tail] = null; // to avoid loitering
+        N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4)
+            resize(a.length / 2);
+        return item;
+    }
+
+    /**
+     * An iterator is returned
+     */
+    public Iterator<Item> iterator() // return an iterator over items in order
+                                        // from front to end
+    {
+        return new ArrayIterator();
+    }
+
+    /**
+     * Iterator is implemented to iterate items in order
+     */
+    private class ArrayIterator implements Iterator<Item> {
+        private int i = 0; // number of items returned so far
+
+        /**
+         * Returns true if there is a next element
+         */
+        public boolean hasNext() {
+            return i < N;
+        }
+
+        /**
+         * Throws an exception if this is called
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Iterates through the items in the array and returns the value
+         */
+        public Item next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return a[(head + i++) & (a.length - 1)];
+        }
+    }
+
+    public static void main(String[] args) // unit testing
+    {
+    }
+}
@@ -0,0 +1,299 @@
+/****************************************************************************
+ *  Compilation:  javac ShardedRandomizedQueue.java
+ *  Execution:  java ShardedRandomizedQueue [operations]
+ *  Dependencies: StdOut.java, java.util.NoSuchElementException and
+ *                java.util.concurrent.
+ *
+ *  Sharded randomized queue.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: ShardedRandomizedQueue.java
+ * Description: *The <tt>ShardedRandomizedQueue</tt> .java
+ * program is a thread-safe <tt>RandomizedQueue</tt> for many threads sharing
+ * one randomized work pool. It supports enqueue(), dequeue(), sample(),
+ * size() and isEmpty() operations.
+ * <p>
+ * This implementation stripes the items across one shard per core (rounded
+ * up to a power of two). Each shard is a resizing array like the one in
+ * <tt>RandomizedQueue</tt>, guarded by its own lock. enqueue() adds to the
+ * calling thread's shard. dequeue() removes from the calling thread's shard
+ * if it has items, and otherwise steals from the non-empty shards, starting
+ * at a random one. Threads therefore mostly touch their own shard, and
+ * throughput grows with the number of cores. Each operation takes constant
+ * amortized time, except that a steal may scan every shard.
+ * <p>
+ * Sampling is not uniform over all items the way <tt>RandomizedQueue</tt>
+ * is. dequeue() is uniform among the items of the shard it takes from, so
+ * items a thread enqueued are more likely to be dequeued by that same
+ * thread. sample() picks a shard with probability proportional to its size
+ * and then an item uniformly within it, so it is exactly uniform while no
+ * other thread is changing the queue and only approximately uniform
+ * otherwise. size() and isEmpty() are snapshots that may be stale by the
+ * time they return.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ShardedRandomizedQueue<Item> {
+
+    // one resizing array of items with its own lock
+    private static final class Shard<Item> {
+        private final ReentrantLock lock = new ReentrantLock(); // guards a, N
+        private Item[] a = (Item[]) new Object[2]; // array of items
+        private volatile int N; // number of items, readable without the lock
+
+        /**
+         * Resizes the array; the lock must be held
+         */
+        private void resize(int capacity) {
+            Item[] temp = (Item[]) new Object[capacity];
+            for (int i = 0; i < N; i++)
+                temp[i] = a[i];
+            a = temp;
+        }
+
+        /**
+         * Adds an item; the lock must be held
+         */
+        private void add(Item item) {
+            if (N == a.length)
+                resize(2 * a.length); // double size of array if necessary
+            a[N] = item;
+            N = N + 1;
+        }
+
+        /**
+         * Removes a random item; the lock must be held and N positive
+         */
+        private Item remove() {
+            int m = ThreadLocalRandom.current().nextInt(N);
+            Item item = a[m];
+            a[m] = a[N - 1];
+            a[N - 1] = null;
+            N = N - 1;
+            // shrink size of array if necessary
+            if (N > 0 && N == a.length / 4)
+                resize(a.length / 2);
+            return item;
+        }
+    }
+
+    private final Shard<Item>[] shards; // one per core
+    private final int mask; // shards.length - 1
+
+    /**
+     * Constructs an empty randomized queue with one shard per core
+     */
+    public ShardedRandomizedQueue() // construct an empty randomized queue
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an empty randomized queue with at least the given number of
+     * shards
+     *
+     * @param concurrency
+     *            indicates the expected number of threads
+     */
+    public ShardedRandomizedQueue(int concurrency) {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        int n = 1;
+        while (n < concurrency)
+            n *= 2;
+        shards = (Shard<Item>[]) new Shard[n];
+        for (int i = 0; i < n; i++)
+            shards[i] = new Shard<Item>();
+        mask = n - 1;
+    }
+
+    /**
+     * Returns the index of the calling thread's shard
+     */
+    private int local() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & mask;
+    }
+
+    /**
+     * Checks if the randomized queue is empty or not
+     *
+     * @return true if it is empty and false if it is not
+     */
+    public boolean isEmpty() // is the queue empty?
+    {
+        for (Shard<Item> shard : shards)
+            if (shard.N > 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the number of items in randomized queue
+     *
+     * @return the size of the randomized queue
+     */
+    public int size() // return the number of items on the queue
+    {
+        int size = 0;
+        for (Shard<Item> shard : shards)
+            size += shard.N;
+        return size;
+    }
+
+    /**
+     * Adds an element to the calling thread's shard
+     *
+     * @param item
+     *            indicates the value to be added
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public void enqueue(Item item) // add the item
+    {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        Shard<Item> shard = shards[local()];
+        shard.lock.lock();
+        try {
+            shard.add(item);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a random element from the shard if it has one
+     *
+     * @return the item removed, or null if the shard was empty
+     */
+    private Item tryRemove(Shard<Item> shard) {
+        if (shard.N == 0)
+            return null;
+        shard.lock.lock();
+        try {
+            return shard.N == 0 ? null : shard.remove();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a random element, from the calling thread's shard if possible
+     * and otherwise from another shard
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if every shard is empty
+     */
+    public Item dequeue() // remove and return a random item
+    {
+        int home = local();
+        Item item = tryRemove(shards[home]);
+        if (item != null)
+            return item;
+        int start = ThreadLocalRandom.current().nextInt(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int s = (start + i) & mask;
+            if (s == home)
+                continue;
+            item = tryRemove(shards[s]);
+            if (item != null)
+                return item;
+        }
+        throw new NoSuchElementException("Empty Randomized Queue");
+    }
+
+    /**
+     * Returns a random element, choosing the shard in proportion to its size
+     *
+     * @return a random item
+     * @throws java.util.NoSuchElementException
+     *             if every shard is empty
+     */
+    public Item sample() // return (but do not remove) a random item
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < 4; attempt++) {
+            int total = size();
+            if (total == 0)
+                break;
+            int r = random.nextInt(total);
+            for (Shard<Item> shard : shards) {
+                int n = shard.N;
+                if (r >= n) {
+                    r -= n;
+                    continue;
+                }
+                shard.lock.lock();
+                try {
+                    if (shard.N > 0)
+                        return shard.a[random.nextInt(shard.N)];
+                } finally {
+                    shard.lock.unlock();
+                }
+                break; // the shard emptied meanwhile; try again
+            }
+        }
+        // the sizes kept changing: fall back to any non-empty shard
+        for (Shard<Item> shard : shards) {
+            shard.lock.lock();
+            try {
+                if (shard.N > 0)
+                    return shard.a[random.nextInt(shard.N)];
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        throw new NoSuchElementException("Empty Randomized Queue");
+    }
+
+    /**
+     * Throughput test: each thread enqueues and dequeues in a loop, for 1 up
+     * to the number of cores threads
+     */
+    public static void main(String[] args) throws InterruptedException // unit testing
+    {
+        final int operations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            final ShardedRandomizedQueue<Integer> queue = new ShardedRandomizedQueue<Integer>();
+            final AtomicLong removed = new AtomicLong();
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Thread(new Runnable() {
+                    public void run() {
+                        long count = 0;
+                        for (int i = 0; i < operations; i++) {
+                            queue.enqueue(i);
+                            if (i % 2 == 1) {
+                                queue.dequeue();
+                                count++;
+                            }
+                        }
+                        removed.addAndGet(count);
+                    }
+                });
+            }
+            long start = System.nanoTime();
+            for (Thread worker : workers)
+                worker.start();
+            for (Thread worker : workers)
+                worker.join();
+            long elapsed = System.nanoTime() - start;
+            long total = (long) threads * (operations + operations / 2);
+            StdOut.println(String.format("%2d threads: %8.1f Mops/s, %d left",
+                    threads, total * 1000.0 / elapsed, queue.size()));
+            if (queue.size() != (long) threads * operations - removed.get())
+                throw new AssertionError("sharded queue lost items");
+        }
+    }
+}
@@ -0,0 +1,517 @@
+/****************************************************************************
+ *  Compilation:  javac SpillingDeque.java
+ *  Execution:  java SpillingDeque file
+ *  Dependencies: Deque.java, StdOut.java, java.nio and java.util.
+ *
+ *  Spilling deque.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: SpillingDeque.java
+ * Description: *The <tt>SpillingDeque</tt> .java
+ * program supports the same operations as <tt>Deque</tt> but keeps only a
+ * small window of items in the heap at each end. Items pushed past a window
+ * spill into a memory-mapped segment file, and the file can be reopened
+ * after a restart to get the same deque back.
+ * <p>
+ * This implementation keeps two <tt>Deque</tt>s as the hot front and back
+ * windows. The middle of the deque is a circular byte buffer in the segment
+ * file holding serialized items, each framed by its length on both sides so
+ * records can be pushed and popped at either end. When the front window
+ * overflows, its innermost item is pushed onto the front of the middle; when
+ * the back window overflows, its innermost item is pushed onto the back.
+ * An end whose window is empty reads straight from the middle. Each
+ * operation is therefore constant time apart from the (de)serialization of
+ * one item, and the file doubles when it is full. A spill that fails,
+ * because the serializer throws or the file cannot grow, leaves the item in
+ * its window and the deque unchanged. The position and size of the middle
+ * and the size of the file's data region are kept in a header at the start
+ * of the file. close() spills both windows so the whole deque is on disk;
+ * the windows are lost if the process dies without calling it.
+ * <p>
+ * One mapping cannot exceed 2GB, so the data region is mapped in segments of
+ * 1GB and offsets into it are longs; the deque is limited by the disk, not
+ * by a mapping. When the file cannot grow, the spill fails as above with an
+ * <tt>UncheckedIOException</tt>.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class SpillingDeque<Item> implements Iterable<Item>, Closeable {
+    private static final int MAGIC = 0x53504432; // "SPD2"
+    private static final int HEADER = 32; // magic, count, head, used, capacity
+    private static final int INITIAL = 1 << 20; // first size of the data region
+    private static final int SEGMENT = 1 << 30; // largest single mapping
+
+    /**
+     * Converts items to and from the bytes stored in the segment file
+     */
+    public interface Serializer<Item> {
+        byte[] toBytes(Item item);
+
+        Item fromBytes(byte[] bytes);
+    }
+
+    /**
+     * Serializer for strings, stored as UTF-8
+     */
+    public static final Serializer<String> STRINGS = new Serializer<String>() {
+        public byte[] toBytes(String item) {
+            return item.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public String fromBytes(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    private final Deque<Item> front = new Deque<Item>(); // hot front window
+    private final Deque<Item> back = new Deque<Item>(); // hot back window
+    private final int window; // maximum size of each hot window
+    private final Serializer<Item> serializer; // item encoding
+    private final FileChannel channel; // segment file
+    private final MappedByteBuffer header; // mapping of the header
+    private MappedByteBuffer[] segments; // mappings of the data region
+    private long capacity; // size of the circular data region
+    private long head; // offset of the first spilled record
+    private long used; // bytes of spilled records
+    private int count; // number of spilled records
+    private final byte[] scratch = new byte[4]; // for lengths
+
+    /**
+     * Opens the deque stored in the file, or creates an empty one if the
+     * file does not exist or is empty
+     *
+     * @param file
+     *            indicates the segment file
+     * @param window
+     *            indicates how many items to keep in the heap at each end
+     * @param serializer
+     *            indicates how items are converted to bytes
+     * @throws java.lang.IllegalArgumentException
+     *             if window is negative or the file is not a segment file
+     */
+    public SpillingDeque(Path file, int window, Serializer<Item> serializer)
+            throws IOException {
+        if (window < 0)
+            throw new IllegalArgumentException("window is negative");
+        if (serializer == null)
+            throw new NullPointerException("serializer is null");
+        this.window = window;
+        this.serializer = serializer;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = channel.size();
+        if (length != 0 && length < HEADER) {
+            channel.close();
+            throw new IllegalArgumentException("not a segment file");
+        }
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        if (length == 0) {
+            segments = map(INITIAL);
+            capacity = INITIAL;
+            writeHeader();
+        } else {
+            count = header.getInt(4);
+            head = header.getLong(8);
+            used = header.getLong(16);
+            capacity = header.getLong(24);
+            if (header.getInt(0) != MAGIC || capacity <= 0
+                    || capacity > length - HEADER || head < 0
+                    || head >= capacity || used < 0 || used > capacity
+                    || count < 0) {
+                channel.close();
+                throw new IllegalArgumentException("not a segment file");
+            }
+            segments = map(capacity);
+        }
+    }
+
+    /**
+     * Maps a data region of the given size, one segment at a time
+     *
+     * @return the mappings, each SEGMENT bytes but maybe the last
+     */
+    private MappedByteBuffer[] map(long size) throws IOException {
+        int n = (int) ((size - 1) / SEGMENT + 1);
+        MappedByteBuffer[] mapped = new MappedByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            long start = (long) i * SEGMENT;
+            mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER + start, Math.min(SEGMENT, size - start));
+        }
+        return mapped;
+    }
+
+    /**
+     * Records the position, size and capacity of the spilled records in the
+     * header
+     */
+    private void writeHeader() {
+        header.putInt(0, MAGIC);
+        header.putInt(4, count);
+        header.putLong(8, head);
+        header.putLong(16, used);
+        header.putLong(24, capacity);
+    }
+
+    /**
+     * Copies bytes into the circular data region starting at pos
+     */
+    private void write(long pos, byte[] src, int len) {
+        for (int done = 0; done < len;) {
+            MappedByteBuffer segment = segments[(int) (pos / SEGMENT)];
+            int offset = (int) (pos % SEGMENT);
+            int n = Math.min(len - done, segment.capacity() - offset);
+            segment.put(offset, src, done, n);
+            done += n;
+            pos = wrap(pos + n);
+        }
+    }
+
+    /**
+     * Copies bytes out of the circular data region starting at pos
+     */
+    private void read(long pos, byte[] dst, int len) {
+        for (int done = 0; done < len;) {
+            MappedByteBuffer segment = segments[(int) (pos / SEGMENT)];
+            int offset = (int) (pos % SEGMENT);
+            int n = Math.min(len - done, segment.capacity() - offset);
+            segment.get(offset, dst, done, n);
+            done += n;
+            pos = wrap(pos + n);
+        }
+    }
+
+    /**
+     * Returns pos reduced to an offset in the circular data region
+     */
+    private long wrap(long pos) {
+        long p = pos % capacity;
+        return p < 0 ? p + capacity : p;
+    }
+
+    private void writeInt(long pos, int value) {
+        scratch[0] = (byte) (value >>> 24);
+        scratch[1] = (byte) (value >>> 16);
+        scratch[2] = (byte) (value >>> 8);
+        scratch[3] = (byte) value;
+        write(pos, scratch, 4);
+    }
+
+    private int readInt(long pos) {
+        read(pos, scratch, 4);
+        return ((scratch[0] & 0xff) << 24) | ((scratch[1] & 0xff) << 16)
+                | ((scratch[2] & 0xff) << 8) | (scratch[3] & 0xff);
+    }
+
+    /**
+     * Makes room for a record of the given size, doubling the file. Records
+     * that wrapped around the end of the old region are moved past it, so
+     * the head offset stays valid.
+     */
+    private void ensure(int size) {
+        if (used + size <= capacity)
+            return;
+        long grown = capacity;
+        while (grown < used + size)
+            grown *= 2;
+        try {
+            segments = map(grown);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long oldCapacity = capacity;
+        capacity = grown;
+        long wrapped = head + used - oldCapacity;
+        if (wrapped > 0) {
+            byte[] chunk = new byte[(int) Math.min(wrapped, 1 << 16)];
+            for (long done = 0; done < wrapped; done += chunk.length) {
+                int n = (int) Math.min(chunk.length, wrapped - done);
+                read(done, chunk, n);
+                write(oldCapacity + done, chunk, n);
+            }
+        }
+    }
+
+    /**
+     * Spills an item onto the front of the middle
+     */
+    private void pushFront(Item item) {
+        byte[] bytes = serializer.toBytes(item);
+        ensure(bytes.length + 8);
+        head = wrap(head - bytes.length - 8L);
+        writeInt(head, bytes.length);
+        write(wrap(head + 4L), bytes, bytes.length);
+        writeInt(wrap(head + 4L + bytes.length), bytes.length);
+        used += bytes.length + 8;
+        count++;
+        writeHeader();
+    }
+
+    /**
+     * Spills an item onto the back of the middle
+     */
+    private void pushBack(Item item) {
+        byte[] bytes = serializer.toBytes(item);
+        ensure(bytes.length + 8);
+        long pos = wrap(head + used);
+        writeInt(pos, bytes.length);
+        write(wrap(pos + 4L), bytes, bytes.length);
+        writeInt(wrap(pos + 4L + bytes.length), bytes.length);
+        used += bytes.length + 8;
+        count++;
+        writeHeader();
+    }
+
+    /**
+     * Moves the innermost item of the front window onto the front of the
+     * middle. If the spill fails the item is put back, so nothing is lost.
+     */
+    private void spillFront() {
+        Item inner = front.removeLast();
+        try {
+            pushFront(inner);
+        } catch (RuntimeException | Error e) {
+            front.addLast(inner);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves the innermost item of the back window onto the back of the
+     * middle. If the spill fails the item is put back, so nothing is lost.
+     */
+    private void spillBack() {
+        Item inner = back.removeFirst();
+        try {
+            pushBack(inner);
+        } catch (RuntimeException | Error e) {
+            back.addFirst(inner);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads back the item at the front of the middle
+     */
+    private Item popFront() {
+        int len = readInt(head);
+        byte[] bytes = new byte[len];
+        read(wrap(head + 4L), bytes, len);
+        head = wrap(head + 8L + len);
+        used -= len + 8;
+        count--;
+        if (count == 0)
+            head = 0;
+        writeHeader();
+        return serializer.fromBytes(bytes);
+    }
+
+    /**
+     * Reads back the item at the back of the middle
+     */
+    private Item popBack() {
+        long end = wrap(head + used);
+        int len = readInt(wrap(end - 4L));
+        byte[] bytes = new byte[len];
+        read(wrap(end - 4L - len), bytes, len);
+        used -= len + 8;
+        count--;
+        if (count == 0)
+            head = 0;
+        writeHeader();
+        return serializer.fromBytes(bytes);
+    }
+
+    /**
+     * Checks if the deque is empty or not
+     *
+     * @return true if it is empty and false if it is not
+     */
+    public boolean isEmpty() // is the deque empty?
+    {
+        return front.isEmpty() && count == 0 && back.isEmpty();
+    }
+
+    /**
+     * Returns the number of items in deque
+     *
+     * @return the size of the deque
+     */
+    public int size() // return the number of items on the deque
+    {
+        return front.size() + count + back.size();
+    }
+
+    /**
+     * Adds an element to the front of the deque
+     *
+     * @param item
+     *            indicates the value to be added.
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public void addFirst(Item item) // add the item to the front
+    {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        // make room first, so a failed spill leaves the deque unchanged
+        if (window == 0) {
+            pushFront(item);
+            return;
+        }
+        if (front.size() == window)
+            spillFront();
+        front.addFirst(item);
+    }
+
+    /**
+     * Adds an element at the end of the deque
+     *
+     * @param item
+     *            indicates the value to be added
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public void addLast(Item item) // add the item to the end
+    {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        // make room first, so a failed spill leaves the deque unchanged
+        if (window == 0) {
+            pushBack(item);
+            return;
+        }
+        if (back.size() == window)
+            spillBack();
+        back.addLast(item);
+    }
+
+    /**
+     * Removes an element from the beginning of the deque
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeFirst() // remove and return the item from the front
+    {
+        if (!front.isEmpty())
+            return front.removeFirst();
+        if (count > 0)
+            return popFront();
+        return back.removeFirst();
+    }
+
+    /**
+     * Removes an element from the end of the deque
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeLast() // remove and return the item from the end
+    {
+        if (!back.isEmpty())
+            return back.removeLast();
+        if (count > 0)
+            return popBack();
+        return front.removeLast();
+    }
+
+    /**
+     * Spills both hot windows into the segment file, flushes it and closes
+     * it. The deque must not be used afterwards. If a spill fails, the items
+     * not yet spilled stay in their windows and the file is left open.
+     */
+    public void close() throws IOException {
+        while (!front.isEmpty())
+            spillFront();
+        while (!back.isEmpty())
+            spillBack();
+        header.force();
+        for (MappedByteBuffer segment : segments)
+            segment.force();
+        channel.close();
+    }
+
+    /**
+     * An iterator is returned
+     */
+    public Iterator<Item> iterator() // return an iterator over items in order
+                                        // from front to end
+    {
+        return new SpillIterator();
+    }
+
+    /**
+     * Iterator is implemented to iterate items in order: the front window,
+     * then the spilled records, then the back window
+     */
+    private class SpillIterator implements Iterator<Item> {
+        private final Iterator<Item> frontItems = front.iterator();
+        private final Iterator<Item> backItems = back.iterator();
+        private long pos = head; // offset of the next spilled record
+        private int spilled = count; // spilled records left to read
+
+        /**
+         * Returns true if there is a next element
+         */
+        public boolean hasNext() {
+            return frontItems.hasNext() || spilled > 0 || backItems.hasNext();
+        }
+
+        /**
+         * Throws an exception if this is called
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Iterates through the windows and the file and returns the value
+         */
+        public Item next() {
+            if (frontItems.hasNext())
+                return frontItems.next();
+            if (spilled > 0) {
+                int len = readInt(pos);
+                byte[] bytes = new byte[len];
+                read(wrap(pos + 4L), bytes, len);
+                pos = wrap(pos + 8L + len);
+                spilled--;
+                return serializer.fromBytes(bytes);
+            }
+            if (backItems.hasNext())
+                return backItems.next();
+            throw new NoSuchElementException();
+        }
+    }
+
+    public static void main(String[] args) throws IOException // unit testing
+    {
+        Path file = Paths.get(args[0]);
+        SpillingDeque<String> deque = new SpillingDeque<String>(file, 4, STRINGS);
+        StdOut.println("reopened with " + deque.size() + " items");
+        for (int i = 0; i < 20; i++) {
+            deque.addLast("last" + i);
+            deque.addFirst("first" + i);
+        }
+        StdOut.println(deque.removeFirst() + " " + deque.removeLast());
+        deque.close();
+    }
+}
@@ -1,7 +1,15 @@
 /****************************************************************************
  *  Compilation:  javac Subset.java
- *  Execution:  echo A B C D E F G H I | java Subset 3 
- *  Dependencies: StdIn.java, RandomizedQueue.java
+ *  Execution:  echo A B C D E F G H I | java Subset 3
+ *              echo A B C D E F G H I | java Subset -r 3
+ *              java Subset -f 3 input.txt
+ *              echo A:1 B:2 C:0.5 D:4 | java Subset -w 2
+ *              java Subset -p 3 shard1.log shard2.log ...
+ *              java Subset -s 3 shard1.log shard1.sketch
+ *              java Subset -m shard1.sketch shard2.sketch ...
+ *  Dependencies: StdIn.java, RandomizedQueue.java, TokenReader.java,
+ *                ReservoirSketch.java, MappedTokenScanner.java,
+ *                KeyHeap.java
  *
  *  Subset.
  *
@@ -14,21 +22,401 @@
  * <p>
  * This implementation uses RandomizedQueue.class. The running time of Subset
  * must be linear in the size of the input.
- * 
+ * <p>
+ * With -r, the input is streamed instead of read into memory: a reservoir
+ * of k tokens is kept with Algorithm L, which after the first k tokens
+ * jumps a geometrically distributed number of tokens ahead to the next one
+ * that enters the reservoir. Skipped tokens are scanned by TokenReader but
+ * never become strings. Every k-subset of the input is equally likely, the
+ * memory used is proportional to k whatever the size of the input, and if
+ * the input has fewer than k tokens all of them are printed.
+ * <p>
+ * With -f, the same sampling runs over a file that is memory-mapped by
+ * MappedTokenScanner. The reservoir holds the byte offset and length of
+ * each chosen token, and only the k tokens left at the end are decoded into
+ * strings, so scanning the file allocates nothing per token.
+ * <p>
+ * With -w, each token is read as <tt>token:weight</tt> (a token without a
+ * colon has weight 1) and k tokens are sampled without replacement with
+ * probability proportional to their weights, by Efraimidis and Spirakis'
+ * algorithm A-ExpJ. Each token in the sample has the key log(u)/w, the
+ * logarithm of the usual u^(1/w), and the k largest keys are kept in a
+ * KeyHeap. Rather than drawing a key per token, A-ExpJ draws the total
+ * weight that can pass before some token beats the smallest key, and only
+ * that token gets a key and becomes a string. The weights of the tokens
+ * in between are parsed without making a string of the token. Memory stays
+ * proportional to k and the output lists the sample by decreasing key,
+ * which is the order of successive weighted draws.
+ * <p>
+ * With -p, each of the files is sampled into a ReservoirSketch on its own
+ * thread and the sketches are merged into one uniform k-subset of all the
+ * tokens of all the files. -s writes the sketch of one file to disk instead
+ * and -m merges sketches written that way, so shards can be sampled on
+ * different machines or at different times and combined later.
+ *
  * @author Amulya Manchikanti
  * @date : 07/03/2015
  */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 public class Subset {
-    public static void main(String[] args) {
+
+    /**
+     * Returns a random number in (0, 1], so its logarithm is finite
+     */
+    private static double nextOpen(RandomGenerator random) {
+        return 1.0 - random.nextDouble();
+    }
+
+    /**
+     * Picks k tokens uniformly at random from the stream with Algorithm L
+     *
+     * @param in
+     *            indicates the tokens to choose from
+     * @param k
+     *            indicates the number of tokens to choose
+     * @param random
+     *            indicates the random generator
+     * @return the chosen tokens in no particular order, fewer than k only if
+     *         the stream has fewer than k tokens
+     */
+    public static String[] reservoir(TokenReader in, int k,
+            RandomGenerator random) throws IOException {
+        if (k < 0)
+            throw new IllegalArgumentException("k is negative");
+        String[] sample = new String[k];
+        int n = 0;
+        while (n < k) {
+            if (!in.advance())
+                return Arrays.copyOf(sample, n);
+            sample[n++] = in.token();
+        }
+        if (k == 0)
+            return sample;
+
+        // w is distributed as the largest of k uniform keys in the reservoir
+        double w = Math.exp(Math.log(nextOpen(random)) / k);
+        while (true) {
+            double gap = Math.floor(Math.log(nextOpen(random)) / Math.log1p(-w));
+            long skip = gap < Long.MAX_VALUE ? (long) gap : Long.MAX_VALUE;
+            if (in.skip(skip) < skip || !in.advance())
+                return sample;
+            sample[random.nextInt(k)] = in.token();
+            w *= Math.exp(Math.log(nextOpen(random)) / k);
+        }
+    }
+
+    /**
+     * Picks k tokens uniformly at random from a mapped file with Algorithm L,
+     * keeping only their positions until the end
+     *
+     * @param in
+     *            indicates the tokens to choose from
+     * @param k
+     *            indicates the number of tokens to choose
+     * @param random
+     *            indicates the random generator
+     * @return the chosen tokens in no particular order, fewer than k only if
+     *         the file has fewer than k tokens
+     */
+    public static String[] reservoir(MappedTokenScanner in, int k,
+            RandomGenerator random) throws IOException {
+        if (k < 0)
+            throw new IllegalArgumentException("k is negative");
+        long[] starts = new long[k];
+        int[] lengths = new int[k];
+        int n = 0;
+        while (n < k && in.advance()) {
+            starts[n] = in.start();
+            lengths[n++] = in.length();
+        }
+        if (n == k && k > 0) {
+            double w = Math.exp(Math.log(nextOpen(random)) / k);
+            while (true) {
+                double gap = Math.floor(Math.log(nextOpen(random)) / Math.log1p(-w));
+                long skip = gap < Long.MAX_VALUE ? (long) gap : Long.MAX_VALUE;
+                if (in.skip(skip) < skip || !in.advance())
+                    break;
+                int i = random.nextInt(k);
+                starts[i] = in.start();
+                lengths[i] = in.length();
+                w *= Math.exp(Math.log(nextOpen(random)) / k);
+            }
+        }
+        String[] sample = new String[n];
+        for (int i = 0; i < n; i++)
+            sample[i] = in.token(starts[i], lengths[i]);
+        return sample;
+    }
+
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+            1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+    /**
+     * Returns the index of the colon that starts the weight of the current
+     * token, or its length if it has none
+     */
+    private static int weightStart(TokenReader in) {
+        for (int i = in.length() - 1; i >= 0; i--) {
+            if (in.charAt(i) == ':')
+                return i;
+        }
+        return in.length();
+    }
+
+    /**
+     * Parses the weight of the current token without making a string of
+     * it, unless the weight is not plain decimal digits
+     *
+     * @throws java.lang.IllegalArgumentException
+     *             if the weight is not a positive and finite number
+     */
+    private static double weight(TokenReader in, int colon) {
+        int end = in.length();
+        if (colon == end)
+            return 1.0;
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean point = false, plain = colon + 1 < end;
+        for (int i = colon + 1; i < end && plain; i++) {
+            char c = in.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = 10 * mantissa + (c - '0');
+                if (point)
+                    scale++;
+                plain = ++digits < POWERS_OF_TEN.length;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                plain = false;
+            }
+        }
+        double weight;
+        if (plain && digits > 0) {
+            // exact below 2^53, so one division rounds correctly
+            weight = mantissa / POWERS_OF_TEN[scale];
+        } else {
+            try {
+                weight = Double.parseDouble(in.token(colon + 1, end));
+            } catch (NumberFormatException e) {
+                weight = Double.NaN;
+            }
+        }
+        if (!(weight > 0.0) || Double.isInfinite(weight))
+            throw new IllegalArgumentException("weight must be positive and finite: "
+                    + in.token());
+        return weight;
+    }
+
+    /**
+     * Picks k tokens without replacement with probability proportional to
+     * their weights, with Efraimidis and Spirakis' A-ExpJ
+     *
+     * @param in
+     *            indicates the <tt>token:weight</tt> pairs to choose from
+     * @param k
+     *            indicates the number of tokens to choose
+     * @param random
+     *            indicates the random generator
+     * @return the chosen tokens, without their weights, by decreasing key
+     * @throws java.lang.IllegalArgumentException
+     *             if a weight is not positive and finite
+     */
+    public static String[] weightedReservoir(TokenReader in, int k,
+            RandomGenerator random) throws IOException {
+        if (k < 0)
+            throw new IllegalArgumentException("k is negative");
+        KeyHeap<String> heap = new KeyHeap<String>(k);
+        while (!heap.isFull() && in.advance()) {
+            int colon = weightStart(in);
+            double w = weight(in, colon);
+            heap.insert(Math.log(nextOpen(random)) / w, in.token(0, colon));
+        }
+        if (heap.isFull() && k > 0) {
+            while (true) {
+                // the weight that passes before a key beats the smallest one
+                double threshold = heap.minKey();
+                double jump = threshold < 0.0 ? Math.log(nextOpen(random)) / threshold
+                        : Double.POSITIVE_INFINITY;
+                double passed = 0.0;
+                int colon;
+                double w;
+                // the jump is at least the next token, even when it is 0
+                do {
+                    if (!in.advance())
+                        return heap.itemsByDecreasingKey(new String[heap.size()]);
+                    colon = weightStart(in);
+                    w = weight(in, colon);
+                    passed += w;
+                } while (passed < jump);
+                // this token's u^(1/w) is uniform above exp(threshold)
+                double t = Math.exp(threshold * w);
+                double u = t + (1.0 - t) * nextOpen(random);
+                heap.replaceMin(Math.log(u) / w, in.token(0, colon));
+            }
+        }
+        return heap.itemsByDecreasingKey(new String[heap.size()]);
+    }
+
+    /**
+     * Samples the tokens of one file into a sketch
+     */
+    private static ReservoirSketch sketch(Path file, int k) throws IOException {
+        ReservoirSketch sketch = new ReservoirSketch(k);
+        TokenReader in = new TokenReader(new InputStreamReader(
+                Files.newInputStream(file), StandardCharsets.UTF_8));
+        try {
+            sketch.addAll(in, ThreadLocalRandom.current());
+        } finally {
+            in.close();
+        }
+        return sketch;
+    }
+
+    /**
+     * Samples each file on its own thread and merges the sketches
+     *
+     * @param files
+     *            indicates the files to sample
+     * @param k
+     *            indicates the size of the sample
+     * @return the sketch of all the files
+     */
+    public static ReservoirSketch sketchAll(List<Path> files, final int k)
+            throws IOException, InterruptedException {
+        int threads = Math.max(1, Math.min(files.size(),
+                Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ReservoirSketch>> futures = new ArrayList<Future<ReservoirSketch>>();
+            for (final Path file : files) {
+                futures.add(pool.submit(new Callable<ReservoirSketch>() {
+                    public ReservoirSketch call() throws IOException {
+                        return sketch(file, k);
+                    }
+                }));
+            }
+            ReservoirSketch[] sketches = new ReservoirSketch[futures.size()];
+            for (int i = 0; i < sketches.length; i++) {
+                try {
+                    sketches[i] = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException)
+                        throw (IOException) e.getCause();
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+            return ReservoirSketch.merge(sketches);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
         RandomizedQueue<String> rq = new RandomizedQueue<String>();
 
+        if (args[0].equals("-p") || args[0].equals("-m")) {
+            ReservoirSketch sketch;
+            if (args[0].equals("-p")) {
+                List<Path> files = new ArrayList<Path>();
+                for (int i = 2; i < args.length; i++)
+                    files.add(Paths.get(args[i]));
+                sketch = sketchAll(files, Integer.parseInt(args[1]));
+            } else {
+                ReservoirSketch[] sketches = new ReservoirSketch[args.length - 1];
+                for (int i = 1; i < args.length; i++) {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(
+                            Files.newInputStream(Paths.get(args[i]))));
+                    try {
+                        sketches[i - 1] = ReservoirSketch.readFrom(in);
+                    } finally {
+                        in.close();
+                    }
+                }
+                sketch = ReservoirSketch.merge(sketches);
+            }
+            for (String str : sketch.sample()) {
+                System.out.println(str);
+            }
+            return;
+        }
+
+        if (args[0].equals("-s")) {
+            ReservoirSketch sketch = sketch(Paths.get(args[2]),
+                    Integer.parseInt(args[1]));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(Paths.get(args[3]))));
+            try {
+                sketch.writeTo(out);
+            } finally {
+                out.close();
+            }
+            return;
+        }
+
+        if (args[0].equals("-w")) {
+            TokenReader in = new TokenReader(new InputStreamReader(System.in,
+                    StandardCharsets.UTF_8));
+            // already in random order
+            for (String str : weightedReservoir(in, Integer.parseInt(args[1]),
+                    ThreadLocalRandom.current())) {
+                System.out.println(str);
+            }
+            return;
+        }
+
+        if (args[0].equals("-r") || args[0].equals("-f")) {
+            int k = Integer.parseInt(args[1]);
+            String[] sample;
+            if (args[0].equals("-r")) {
+                TokenReader in = new TokenReader(new InputStreamReader(System.in,
+                        StandardCharsets.UTF_8));
+                sample = reservoir(in, k, ThreadLocalRandom.current());
+            } else {
+                MappedTokenScanner in = new MappedTokenScanner(Paths.get(args[2]));
+                try {
+                    sample = reservoir(in, k, ThreadLocalRandom.current());
+                } finally {
+                    in.close();
+                }
+            }
+            // the reservoir is not in random order, so shuffle it on output
+            for (String str : sample) {
+                rq.enqueue(str);
+            }
+            for (String str : rq.dequeue(rq.size())) {
+                System.out.println(str);
+            }
+            return;
+        }
+
         String input = StdIn.readLine();
         for (String str : input.split("[\\s]+")) {
             rq.enqueue(str);
         }
 
-        for (int i = 0; i < Integer.parseInt(args[0]); i++) {
-            System.out.println(rq.dequeue());
+        for (String str : rq.dequeue(Integer.parseInt(args[0]))) {
+            System.out.println(str);
         }
     }
 
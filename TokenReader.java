@@ -0,0 +1,195 @@
+/****************************************************************************
+ *  Compilation:  javac TokenReader.java
+ *  Execution:  none
+ *  Dependencies: java.io.Reader.
+ *
+ *  Token reader.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: TokenReader.java
+ * Description: *The <tt>TokenReader</tt> .java
+ * program splits a character stream into whitespace-separated tokens, the
+ * same tokens <tt>StdIn.readAllStrings()</tt> returns (<tt>split("[\\s]+")</tt>
+ * on the trimmed input, with no empty leading token), without a regex and
+ * without holding more than one buffer of input. It supports advance(),
+ * token(), length(), charAt() and skip() operations.
+ * <p>
+ * This implementation scans a 64K character buffer by hand. advance() copies
+ * the next token into a reusable character array and token() turns it into
+ * a <tt>String</tt> only when asked, so tokens that are skipped or rejected
+ * never allocate; length() and charAt() let a caller look inside the token
+ * without making one. skip() passes over tokens without copying them at all.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+public class TokenReader implements Closeable {
+    private final Reader in; // underlying stream
+    private final char[] buf = new char[1 << 16]; // input buffer
+    private int pos; // next character to scan in buf
+    private int limit; // number of characters in buf
+    private char[] token = new char[64]; // current token
+    private int length; // length of the current token
+
+    /**
+     * Constructs a token reader over the stream
+     *
+     * @param in
+     *            indicates the characters to split into tokens
+     */
+    public TokenReader(Reader in) {
+        if (in == null)
+            throw new NullPointerException("Reader is null");
+        this.in = in;
+    }
+
+    /**
+     * same characters as the regex class \s
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f'
+                || c == 0x0B;
+    }
+
+    /**
+     * Refills the buffer when it has been scanned
+     *
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        if (pos < limit)
+            return true;
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+        if (n < 0)
+            return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Skips whitespace up to the start of the next token
+     *
+     * @return false at the end of the stream
+     */
+    private boolean skipSpace() throws IOException {
+        while (fill()) {
+            while (pos < limit && isSpace(buf[pos]))
+                pos++;
+            if (pos < limit)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves to the next token
+     *
+     * @return true if there was a next token and false at the end of the
+     *         stream
+     */
+    public boolean advance() throws IOException {
+        length = 0;
+        if (!skipSpace())
+            return false;
+        while (fill()) {
+            int start = pos;
+            while (pos < limit && !isSpace(buf[pos]))
+                pos++;
+            int n = pos - start;
+            if (length + n > token.length) {
+                char[] temp = new char[Math.max(2 * token.length, length + n)];
+                System.arraycopy(token, 0, temp, 0, length);
+                token = temp;
+            }
+            System.arraycopy(buf, start, token, length, n);
+            length += n;
+            if (pos < limit)
+                break; // stopped at whitespace
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current token as a string
+     *
+     * @return the token found by the last call to advance()
+     */
+    public String token() {
+        return new String(token, 0, length);
+    }
+
+    /**
+     * Returns part of the current token as a string
+     *
+     * @param begin
+     *            indicates the first character, inclusive
+     * @param end
+     *            indicates the last character, exclusive
+     * @return the characters of the token in [begin, end)
+     */
+    public String token(int begin, int end) {
+        if (begin < 0 || end > length || begin > end)
+            throw new IndexOutOfBoundsException("range out of token");
+        return new String(token, begin, end - begin);
+    }
+
+    /**
+     * Returns the length of the current token
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns a character of the current token without copying the token
+     *
+     * @param i
+     *            indicates the index of the character
+     * @return the character at index i
+     */
+    public char charAt(int i) {
+        if (i < 0 || i >= length)
+            throw new IndexOutOfBoundsException("index out of token");
+        return token[i];
+    }
+
+    /**
+     * Skips tokens without copying them
+     *
+     * @param n
+     *            indicates the number of tokens to skip
+     * @return the number of tokens skipped, less than n only at the end of
+     *         the stream
+     */
+    public long skip(long n) throws IOException {
+        length = 0;
+        long skipped = 0;
+        while (skipped < n && skipSpace()) {
+            while (fill()) {
+                while (pos < limit && !isSpace(buf[pos]))
+                    pos++;
+                if (pos < limit)
+                    break;
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Closes the underlying stream
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+}
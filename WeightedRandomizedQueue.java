@@ -0,0 +1,424 @@
+/****************************************************************************
+ *  Compilation:  javac WeightedRandomizedQueue.java
+ *  Execution:  java WeightedRandomizedQueue
+ *  Dependencies: StdOut.java, java.util.NoSuchElementException and
+ *                java.util.random.
+ *
+ *  Weighted randomized queue.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: WeightedRandomizedQueue.java
+ * Description: *The <tt>WeightedRandomizedQueue</tt> .java
+ * program is a <tt>RandomizedQueue</tt> in which each item has a positive
+ * weight and is removed with probability proportional to it. It supports
+ * enqueue(), dequeue(), sample() and setWeight() operations, and freeze(),
+ * which captures the current items and weights in an alias table.
+ * <p>
+ * This implementation uses a resizing array of entries with a sum tree of
+ * their weights over the same indices: an array in which the leaves hold
+ * the weights and each parent is the sum of its two children. A random
+ * point in [0, total weight) is located by descending the tree, and a
+ * removed entry is replaced by the last one, exactly as in
+ * <tt>RandomizedQueue</tt>, which changes two leaves of the tree. A change
+ * recomputes each node above the leaf as the sum of its children rather
+ * than adding the difference of the weights, so the sums never drift, even
+ * when the weights differ by more than the precision of a double.
+ * enqueue(), dequeue(), sample() and setWeight() therefore take logarithmic
+ * amortized time; resizing rebuilds the tree in linear time.
+ * enqueue() returns a handle on the entry, which setWeight() uses to find
+ * it in constant time.
+ * <p>
+ * The alias table returned by freeze() is built with Vose's method in
+ * linear time and samples in constant time, but does not see later changes
+ * to the queue.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+public class WeightedRandomizedQueue<Item> {
+
+    /**
+     * Handle on an item in the queue, returned by enqueue()
+     */
+    public interface Handle<Item> {
+        /**
+         * Returns the item this handle refers to
+         */
+        Item item();
+
+        /**
+         * Returns the current weight of the item
+         */
+        double weight();
+    }
+
+    // an item with its weight and its position in the array
+    private final class Entry implements Handle<Item> {
+        private final Item item; // item to be sampled
+        private double weight; // weight of the item
+        private int index; // position in a[], or -1 once removed
+
+        Entry(Item item, double weight, int index) {
+            this.item = item;
+            this.weight = weight;
+            this.index = index;
+        }
+
+        public Item item() {
+            return item;
+        }
+
+        public double weight() {
+            return weight;
+        }
+
+        private WeightedRandomizedQueue<Item> owner() {
+            return WeightedRandomizedQueue.this;
+        }
+    }
+
+    private Entry[] a; // array of entries
+    private double[] tree; // sum tree of weights, leaf i at a.length + i
+    private int N; // number of entries
+    private final RandomGenerator random; // null for ThreadLocalRandom
+
+    /**
+     * Constructs an empty weighted randomized queue
+     */
+    public WeightedRandomizedQueue() {
+        this((RandomGenerator) null);
+    }
+
+    /**
+     * Constructs an empty weighted randomized queue whose random choices are
+     * reproducible from the seed
+     *
+     * @param seed
+     *            indicates the seed of the random generator
+     */
+    public WeightedRandomizedQueue(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Constructs an empty weighted randomized queue using the given random
+     * generator
+     *
+     * @param random
+     *            indicates the generator, or null to use the calling thread's
+     *            ThreadLocalRandom
+     */
+    public WeightedRandomizedQueue(RandomGenerator random) {
+        a = newArray(2);
+        tree = new double[4];
+        this.random = random;
+    }
+
+    private Entry[] newArray(int capacity) {
+        return (Entry[]) new WeightedRandomizedQueue<?>.Entry[capacity];
+    }
+
+    private RandomGenerator random() {
+        return random != null ? random : ThreadLocalRandom.current();
+    }
+
+    /**
+     * Checks if the queue is empty or not
+     *
+     * @return true if it is empty and false if it is not
+     */
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return the size of the queue
+     */
+    public int size() {
+        return N;
+    }
+
+    /**
+     * Returns the sum of the weights of the items in the queue
+     *
+     * @return the total weight
+     */
+    public double totalWeight() {
+        return tree[1];
+    }
+
+    /**
+     * Resizes the array and rebuilds the sum tree from the weights
+     *
+     * @param capacity
+     *            indicates the new size of the array
+     */
+    private void resize(int capacity) {
+        assert capacity >= N;
+        Entry[] temp = newArray(capacity);
+        for (int i = 0; i < N; i++)
+            temp[i] = a[i];
+        a = temp;
+        tree = new double[2 * capacity];
+        for (int i = 0; i < N; i++)
+            tree[capacity + i] = a[i].weight;
+        for (int k = capacity - 1; k > 0; k--)
+            tree[k] = tree[2 * k] + tree[2 * k + 1];
+    }
+
+    /**
+     * Sets the weight at array index i and recomputes the sums above it
+     */
+    private void set(int i, double weight) {
+        int k = a.length + i;
+        tree[k] = weight;
+        for (k >>= 1; k > 0; k >>= 1)
+            tree[k] = tree[2 * k] + tree[2 * k + 1];
+    }
+
+    /**
+     * Returns the array index whose weight interval contains r
+     */
+    private int find(double r) {
+        int k = 1;
+        while (k < a.length) {
+            if (r < tree[2 * k]) {
+                k = 2 * k;
+            } else {
+                r -= tree[2 * k];
+                k = 2 * k + 1;
+            }
+        }
+        return Math.min(k - a.length, N - 1); // guard against rounding past the end
+    }
+
+    /**
+     * Checks that the weight is positive and finite
+     */
+    private static void checkWeight(double weight) {
+        if (!(weight > 0.0) || Double.isInfinite(weight))
+            throw new IllegalArgumentException("weight must be positive and finite");
+    }
+
+    /**
+     * Adds an element with the given weight
+     *
+     * @param item
+     *            indicates the value to be added
+     * @param weight
+     *            indicates the weight of the item
+     * @return the handle on the new item
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     * @throws java.lang.IllegalArgumentException
+     *             if the weight is not positive and finite
+     */
+    public Handle<Item> enqueue(Item item, double weight) {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        checkWeight(weight);
+        if (N == a.length)
+            resize(2 * a.length); // double size of array if necessary
+        Entry entry = new Entry(item, weight, N);
+        a[N++] = entry;
+        set(entry.index, weight);
+        return entry;
+    }
+
+    /**
+     * Removes an element chosen with probability proportional to its weight
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty queue
+     */
+    public Item dequeue() {
+        if (isEmpty())
+            throw new NoSuchElementException("Empty Randomized Queue");
+        int m = find(random().nextDouble() * tree[1]);
+        Entry entry = a[m];
+        Entry last = a[N - 1];
+        if (m != N - 1) {
+            set(m, last.weight);
+            a[m] = last;
+            last.index = m;
+        }
+        set(N - 1, 0.0);
+        a[N - 1] = null;
+        N--;
+        entry.index = -1;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4)
+            resize(a.length / 2);
+        return entry.item;
+    }
+
+    /**
+     * Returns an element chosen with probability proportional to its weight
+     *
+     * @return a random item
+     * @throws java.util.NoSuchElementException
+     *             if the queue is empty
+     */
+    public Item sample() {
+        if (isEmpty())
+            throw new NoSuchElementException("Empty Randomized Queue");
+        return a[find(random().nextDouble() * tree[1])].item;
+    }
+
+    /**
+     * Changes the weight of an item still in the queue
+     *
+     * @param handle
+     *            indicates the item returned by enqueue()
+     * @param weight
+     *            indicates the new weight
+     * @throws java.lang.IllegalArgumentException
+     *             if the item is no longer in the queue or the weight is not
+     *             positive and finite
+     */
+    public void setWeight(Handle<Item> handle, double weight) {
+        if (handle == null)
+            throw new NullPointerException("Handle is null");
+        checkWeight(weight);
+        if (!(handle instanceof WeightedRandomizedQueue.Entry))
+            throw new IllegalArgumentException("Not a WeightedRandomizedQueue handle");
+        Entry entry = (Entry) handle;
+        if (entry.owner() != this || entry.index < 0)
+            throw new IllegalArgumentException("Item is not in this queue");
+        entry.weight = weight;
+        set(entry.index, weight);
+    }
+
+    /**
+     * Captures the current items and weights in an alias table
+     *
+     * @return a sampler that picks from a snapshot of the queue in constant
+     *         time
+     * @throws java.util.NoSuchElementException
+     *             if the queue is empty
+     */
+    public AliasTable<Item> freeze() {
+        if (isEmpty())
+            throw new NoSuchElementException("Empty Randomized Queue");
+        Object[] items = new Object[N];
+        double[] weights = new double[N];
+        for (int i = 0; i < N; i++) {
+            items[i] = a[i].item;
+            weights[i] = a[i].weight;
+        }
+        return new AliasTable<Item>(items, weights, random);
+    }
+
+    /**
+     * Alias table over frozen weights: sample() picks a column uniformly,
+     * then either the column's own item or its alias
+     */
+    public static final class AliasTable<Item> {
+        private final Object[] items; // item of each column
+        private final double[] prob; // chance of keeping the column's item
+        private final int[] alias; // item used otherwise
+        private final RandomGenerator random; // null for ThreadLocalRandom
+
+        private AliasTable(Object[] items, double[] weights, RandomGenerator random) {
+            int n = items.length;
+            this.items = items;
+            this.random = random;
+            prob = new double[n];
+            alias = new int[n];
+
+            double total = 0.0;
+            for (double w : weights)
+                total += w;
+            double[] scaled = new double[n];
+            int[] small = new int[n], large = new int[n];
+            int smalls = 0, larges = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights[i] * n / total;
+                if (scaled[i] < 1.0)
+                    small[smalls++] = i;
+                else
+                    large[larges++] = i;
+            }
+            while (smalls > 0 && larges > 0) {
+                int s = small[--smalls];
+                int l = large[--larges];
+                prob[s] = scaled[s];
+                alias[s] = l;
+                scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+                if (scaled[l] < 1.0)
+                    small[smalls++] = l;
+                else
+                    large[larges++] = l;
+            }
+            // whatever is left is 1 up to rounding
+            while (larges > 0)
+                prob[large[--larges]] = 1.0;
+            while (smalls > 0)
+                prob[small[--smalls]] = 1.0;
+        }
+
+        /**
+         * Returns an item chosen with probability proportional to its frozen
+         * weight, in constant time
+         */
+        public Item sample() {
+            RandomGenerator r = random != null ? random : ThreadLocalRandom.current();
+            int column = r.nextInt(items.length);
+            int i = r.nextDouble() < prob[column] ? column : alias[column];
+            return (Item) items[i];
+        }
+    }
+
+    public static void main(String[] args) // unit testing
+    {
+        // a heavy item reweighted to match light ones must leave no residue
+        WeightedRandomizedQueue<String> q = new WeightedRandomizedQueue<String>(42L);
+        Handle<String> heavy = q.enqueue("a", 1e17);
+        q.enqueue("b", 1.0);
+        q.enqueue("c", 1.0);
+        q.enqueue("d", 1.0);
+        q.setWeight(heavy, 1.0);
+        if (q.totalWeight() != 4.0)
+            throw new AssertionError("total weight " + q.totalWeight() + ", expected 4");
+        int trials = 400000;
+        int[] counts = new int[4];
+        for (int i = 0; i < trials; i++)
+            counts[q.sample().charAt(0) - 'a']++;
+        for (int count : counts) {
+            if (Math.abs(count - trials / 4) > trials / 100)
+                throw new AssertionError("biased sample counts "
+                        + java.util.Arrays.toString(counts));
+        }
+
+        // weights over 20 decades: bringing the heavy items down must leave
+        // the same sums as a queue built with the final weights
+        WeightedRandomizedQueue<Integer> mixed = new WeightedRandomizedQueue<Integer>(7L);
+        WeightedRandomizedQueue<Integer> fresh = new WeightedRandomizedQueue<Integer>(7L);
+        java.util.List<Handle<Integer>> handles = new java.util.ArrayList<Handle<Integer>>();
+        for (int i = 0; i < 1000; i++)
+            handles.add(mixed.enqueue(i, Math.pow(10.0, i % 21) * (1 + i % 7)));
+        double exact = 0.0;
+        for (int i = 0; i < 1000; i++) {
+            double weight = i % 21 < 4 ? handles.get(i).weight() : 1.0;
+            mixed.setWeight(handles.get(i), weight);
+            fresh.enqueue(i, weight);
+            exact += weight;
+        }
+        if (mixed.totalWeight() != fresh.totalWeight()
+                || Math.abs(mixed.totalWeight() - exact) > 1e-12 * exact)
+            throw new AssertionError("total weight drifted: " + mixed.totalWeight()
+                    + ", expected " + exact);
+        StdOut.println("sample counts " + java.util.Arrays.toString(counts)
+                + ", mixed weights ok");
+    }
+}
@@ -0,0 +1,237 @@
+/****************************************************************************
+ *  Compilation:  javac WorkStealingDeque.java
+ *  Execution:  java WorkStealingDeque [items]
+ *  Dependencies: StdOut.java, java.util.NoSuchElementException and
+ *                java.util.concurrent.atomic.
+ *
+ *  Work-stealing deque.
+ *
+ ****************************************************************************/
+/**
+ * Class Name: WorkStealingDeque.java
+ * Description: *The <tt>WorkStealingDeque</tt> .java
+ * program is a concurrent sibling of <tt>Deque</tt> following the Chase-Lev
+ * work-stealing design. A single owner thread adds and removes items at the
+ * end with addLast() and removeLast(), while any number of thief threads
+ * remove items from the front with removeFirst().
+ * <p>
+ * This implementation uses a circular resizing array with a bottom index
+ * written only by the owner and a top index advanced by compare-and-set.
+ * None of the operations take a lock: the owner only races with thieves for
+ * the last remaining item, and thieves only race with each other. Each
+ * operation takes constant amortized time. Null items are rejected and
+ * removing from an empty deque throws, exactly as in <tt>Deque</tt>.
+ * size() and isEmpty() are snapshots that may be stale by the time they
+ * return if other threads are active.
+ *
+ * @author Amulya Manchikanti
+ * @date : 07/03/2015
+ */
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class WorkStealingDeque<Item> {
+    private volatile AtomicReferenceArray<Item> a; // circular array of items
+    private volatile long bottom; // next free slot, written by owner only
+    private final AtomicLong top = new AtomicLong(); // next slot to steal
+
+    /**
+     * Constructs an empty deque
+     */
+    public WorkStealingDeque() // construct an empty deque
+    {
+        a = new AtomicReferenceArray<Item>(16);
+    }
+
+    /**
+     * Checks if the deque is empty or not
+     *
+     * @return true if it is empty and false if it is not
+     */
+    public boolean isEmpty() // is the deque empty?
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of items in deque
+     *
+     * @return the size of the deque
+     */
+    public int size() // return the number of items on the deque
+    {
+        long n = bottom - top.get();
+        return n > 0 ? (int) n : 0;
+    }
+
+    /**
+     * Copies the live items into an array twice as big. Only the owner
+     * calls this; thieves still reading the old array see the same items at
+     * the same indices.
+     *
+     * @param old
+     *            indicates the array currently in use
+     * @param b
+     *            indicates the current bottom index
+     * @param t
+     *            indicates the current top index
+     * @return the new array
+     */
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> old,
+            long b, long t) {
+        AtomicReferenceArray<Item> temp = new AtomicReferenceArray<Item>(
+                2 * old.length());
+        int oldMask = old.length() - 1;
+        int newMask = temp.length() - 1;
+        for (long i = t; i < b; i++)
+            temp.set((int) (i & newMask), old.get((int) (i & oldMask)));
+        a = temp;
+        return temp;
+    }
+
+    /**
+     * Adds an element at the end of the deque. Owner thread only.
+     *
+     * @param item
+     *            indicates the value to be added
+     * @throws java.lang.NullPointerException
+     *             if the item added id null
+     */
+    public void addLast(Item item) // add the item to the end
+    {
+        if (item == null)
+            throw new NullPointerException("Item is null");
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> arr = a;
+        if (b - t >= arr.length())
+            arr = grow(arr, b, t); // double size of array if necessary
+        arr.set((int) (b & (arr.length() - 1)), item);
+        bottom = b + 1; // publishes the item to thieves
+    }
+
+    /**
+     * Removes an element from the end of the deque. Owner thread only.
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeLast() // remove and return the item from the end
+    {
+        long b = bottom - 1;
+        AtomicReferenceArray<Item> arr = a;
+        bottom = b; // volatile write is ordered before the read of top
+        long t = top.get();
+        if (t > b) {
+            bottom = b + 1; // was already empty
+            throw new NoSuchElementException("Empty Queue");
+        }
+        int i = (int) (b & (arr.length() - 1));
+        Item item = arr.get(i);
+        if (t == b) {
+            // last item: race thieves for it through top
+            boolean won = top.compareAndSet(t, t + 1);
+            bottom = b + 1;
+            if (!won)
+                throw new NoSuchElementException("Empty Queue");
+        }
+        arr.set(i, null); // to avoid loitering
+        return item;
+    }
+
+    /**
+     * Steals an element from the beginning of the deque. Any thread may call
+     * this; a thief that loses a race with another thread retries until it
+     * either takes an item or sees the deque empty. Slots taken by thieves
+     * are not cleared, they are overwritten when the owner wraps around.
+     *
+     * @return an item removed
+     * @throws java.util.NoSuchElementException
+     *             if the item is removed form empty deque
+     */
+    public Item removeFirst() // remove and return the item from the front
+    {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b)
+                throw new NoSuchElementException("Empty Queue");
+            AtomicReferenceArray<Item> arr = a;
+            Item item = arr.get((int) (t & (arr.length() - 1)));
+            if (top.compareAndSet(t, t + 1))
+                return item;
+        }
+    }
+
+    /**
+     * Stress test: the owner pushes and pops while one thief per remaining
+     * core steals, then checks that every item came out exactly once.
+     */
+    public static void main(String[] args) throws InterruptedException // unit testing
+    {
+        final int items = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final WorkStealingDeque<Integer> deque = new WorkStealingDeque<Integer>();
+        final AtomicIntegerArray seen = new AtomicIntegerArray(items);
+        final AtomicLong stolen = new AtomicLong();
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Thread[] thieves = new Thread[Math.max(1, cores - 1)];
+        for (int i = 0; i < thieves.length; i++) {
+            thieves[i] = new Thread(new Runnable() {
+                public void run() {
+                    long count = 0;
+                    while (true) {
+                        boolean finished = done.get();
+                        try {
+                            seen.incrementAndGet(deque.removeFirst());
+                            count++;
+                        } catch (NoSuchElementException e) {
+                            if (finished)
+                                break;
+                        }
+                    }
+                    stolen.addAndGet(count);
+                }
+            });
+            thieves[i].start();
+        }
+
+        long start = System.nanoTime();
+        long popped = 0;
+        for (int i = 0; i < items; i++) {
+            deque.addLast(i);
+            if (i % 3 == 0) {
+                try {
+                    seen.incrementAndGet(deque.removeLast());
+                    popped++;
+                } catch (NoSuchElementException e) {
+                    // a thief got there first
+                }
+            }
+        }
+        done.set(true);
+        for (Thread thief : thieves)
+            thief.join();
+        long elapsed = System.nanoTime() - start;
+
+        int missing = 0, duplicated = 0;
+        for (int i = 0; i < items; i++) {
+            if (seen.get(i) == 0)
+                missing++;
+            else if (seen.get(i) > 1)
+                duplicated++;
+        }
+        StdOut.println(thieves.length + " thieves, " + items + " items in "
+                + elapsed / 1000000 + " ms: owner " + popped + ", stolen "
+                + stolen.get());
+        StdOut.println("missing " + missing + ", duplicated " + duplicated);
+        if (missing != 0 || duplicated != 0 || !deque.isEmpty())
+            throw new AssertionError("work-stealing deque lost or duplicated items");
+    }
+}